@@ -0,0 +1,106 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static fr.uvsq.hal.pglp.rpg.Ability.Strength;
+import static fr.uvsq.hal.pglp.rpg.DifficultyClass.Medium;
+import static fr.uvsq.hal.pglp.rpg.Skill.Acrobatics;
+import static fr.uvsq.hal.pglp.rpg.Skill.Perception;
+
+/**
+ * La classe <code>CharacterBenchmark</code> mesure les performances
+ * de la création de personnages et des tests.
+ *
+ * @author hal
+ * @version 2022
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(time = 1)
+@Measurement(time = 1)
+public class CharacterBenchmark {
+  private static final Ability[] ABILITIES_ORDER = {
+    Ability.Charisma, Ability.Wisdom, Ability.Intelligence, Ability.Constitution, Ability.Dexterity, Strength
+  };
+
+  private static final int BULK_SIZE = 16 * CharacterGenerator.PARTITION_SIZE;
+
+  @Param({ "Advantage", "None", "Disadvantage" })
+  private Character.Advantage advantage;
+
+  private Character frodon;
+  private List<Character> population;
+  private CharacterStore store;
+
+  /**
+   * Initialise le générateur et le personnage.
+   */
+  @Setup
+  public void setup() {
+    Dice.setSeed(1L);
+    frodon = new CharacterBuilder("Frodon")
+      .nonRamdomAbilities(Ability.values())
+      .isProficientIn(Acrobatics, Perception)
+      .build();
+    population = new CharacterGenerator(1L).isProficientIn(Acrobatics, Perception).generate(BULK_SIZE);
+    store = new CharacterStore(population);
+  }
+
+  @Benchmark
+  public Character characterBuilder() {
+    return new CharacterBuilder("Frodon", ABILITIES_ORDER).build();
+  }
+
+  @Benchmark
+  public Character characterBuilderDirect() {
+    return new CharacterBuilder("Frodon", ABILITIES_ORDER, null, AbilityScoresSampler.Direct).build();
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public List<Character> characterGenerator() {
+    return new CharacterGenerator(1L).setAbilitiesOrder(ABILITIES_ORDER).generate(BULK_SIZE);
+  }
+
+  @Benchmark
+  public int skillModifier() {
+    return frodon.getProficiencyBonusIn(Perception);
+  }
+
+  @Benchmark
+  public double skillSuccessProbability() {
+    return frodon.successProbability(Acrobatics, Medium, advantage);
+  }
+
+  @Benchmark
+  public boolean abilityCheck() {
+    return frodon.checks(Strength, Medium, advantage);
+  }
+
+  @Benchmark
+  public boolean skillCheck() {
+    return frodon.checks(Acrobatics, Medium, advantage);
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public BitSet populationSkillCheck() {
+    BitSet successes = new BitSet(BULK_SIZE);
+    for (int i = 0; i < BULK_SIZE; i++) {
+      if (population.get(i).checks(Acrobatics, Medium, advantage)) {
+        successes.set(i);
+      }
+    }
+    return successes;
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public BitSet storeSkillCheck() {
+    return store.checks(Acrobatics, Medium, advantage);
+  }
+}
@@ -0,0 +1,107 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.IntBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static fr.uvsq.hal.pglp.rpg.Dice.d20;
+import static fr.uvsq.hal.pglp.rpg.Dice.d6;
+
+/**
+ * La classe <code>DiceBenchmark</code> mesure les performances des lancers de dés.
+ *
+ * @author hal
+ * @version 2022
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(time = 1)
+@Measurement(time = 1)
+public class DiceBenchmark {
+  private static final int BATCH = 1000;
+
+  private DiceGroup twoD20;
+  private DiceGroup fourD6;
+  private final int[] values = new int[BATCH];
+  private final IntBuffer sums = IntBuffer.allocate(BATCH);
+
+  /**
+   * Initialise le générateur et les groupes de dés.
+   */
+  @Setup
+  public void setup() {
+    Dice.setSeed(1L);
+    twoD20 = new DiceGroup.Builder(2, d20).build();
+    fourD6 = new DiceGroup.Builder(4, d6).build();
+  }
+
+  @Benchmark
+  public int diceRoll() {
+    return d20.roll();
+  }
+
+  @Benchmark
+  public int[] diceGroupRoll() {
+    return fourD6.roll();
+  }
+
+  @Benchmark
+  public int diceGroupRollnSun() {
+    return fourD6.rollnSun();
+  }
+
+  @Benchmark
+  public int diceGroupRollnMax() {
+    return twoD20.rollnMax();
+  }
+
+  @Benchmark
+  public int diceGroupKeepHighest() {
+    return fourD6.keepHighest(3);
+  }
+
+  @Benchmark
+  public int[] diceRolls() {
+    for (int i = 0; i < BATCH; i++) {
+      values[i] = d20.roll();
+    }
+    return values;
+  }
+
+  @Benchmark
+  public int[] diceRollBatch() {
+    d20.roll(BATCH, values);
+    return values;
+  }
+
+  @Benchmark
+  public int[] diceGroupSums() {
+    for (int i = 0; i < BATCH; i++) {
+      values[i] = fourD6.sum();
+    }
+    return values;
+  }
+
+  @Benchmark
+  public IntBuffer diceGroupRollBatch() {
+    sums.clear();
+    fourD6.rollBatch(BATCH, sums);
+    return sums;
+  }
+
+  @Benchmark
+  public int diceExpression() {
+    return DiceExpression.parse("4d6kh3+2").roll();
+  }
+
+  @Benchmark
+  public AbilityScore abilityScore() {
+    return new AbilityScore();
+  }
+
+  @Benchmark
+  public AbilityScore sharedAbilityScore() {
+    return AbilityScore.random(Dice.getRandomSource());
+  }
+}
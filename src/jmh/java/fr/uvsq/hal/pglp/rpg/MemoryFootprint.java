@@ -0,0 +1,55 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import java.lang.ref.Reference;
+import java.util.List;
+
+/**
+ * Compare l'empreinte mémoire d'une population de personnages
+ * et de sa représentation compacte.
+ * Ce programme n'est pas un benchmark JMH : le profil <code>jmh</code> ne l'exécute pas.
+ * Il se lance avec <code>mvn -P jmh compile exec:java -Dexec.mainClass=fr.uvsq.hal.pglp.rpg.MemoryFootprint</code>,
+ * en ajoutant éventuellement <code>-Dexec.args=100000</code> pour fixer le nombre de personnages.
+ *
+ * @author hal
+ * @version 2022
+ */
+public final class MemoryFootprint {
+  private static final int COUNT = 1_000_000;
+
+  private MemoryFootprint() {
+  }
+
+  private static long usedMemory() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  public static void main(String[] args) {
+    int count = args.length > 0 ? Integer.parseInt(args[0]) : COUNT;
+    String[] names = new String[count];
+    for (int i = 0; i < count; i++) {
+      names[i] = "NPC-" + i;
+    }
+    CharacterGenerator generator = new CharacterGenerator(1L)
+      .isProficientIn(Skill.Acrobatics, Skill.History, Skill.Medicine)
+      .setNaming(i -> names[i]);
+
+    long before = usedMemory();
+    List<Character> characters = generator.generate(count);
+    long afterCharacters = usedMemory();
+    CompactCharacter[] compacts = new CompactCharacter[count];
+    for (int i = 0; i < count; i++) {
+      compacts[i] = CompactCharacter.of(characters.get(i));
+    }
+    long afterCompacts = usedMemory();
+
+    System.out.printf("Character        : %6.1f bytes/character%n", (double) (afterCharacters - before) / count);
+    System.out.printf("CompactCharacter : %6.1f bytes/character%n", (double) (afterCompacts - afterCharacters) / count);
+    // les deux populations doivent rester accessibles jusqu'à la dernière mesure
+    Reference.reachabilityFence(characters);
+    Reference.reachabilityFence(compacts);
+  }
+}
@@ -1,13 +1,12 @@
 package fr.uvsq.hal.pglp.rpg;
 
-import java.util.Arrays;
-import java.util.NoSuchElementException;
-
 import static fr.uvsq.hal.pglp.rpg.Dice.d6;
 import static java.lang.Math.floorDiv;
 
 /**
  * La classe <code>AbilityScore</code> représente la valeur d'une caractéristique.
+ * Les instances sont immuables : les méthodes <code>of</code> et <code>random</code>
+ * retournent des instances partagées (une par valeur) dont le modificateur est précalculé.
  *
  * @author hal
  * @version 2022
@@ -21,8 +20,20 @@ public class AbilityScore implements Comparable<AbilityScore> {
 
   private static final String MSG_SCORE_INVALID = "The score is invalid.";
 
+  /** Instances partagées indexées par la valeur. */
+  private static final AbilityScore[] SHARED_SCORES = new AbilityScore[MAX_SCORE + 1];
+
+  static {
+    for (int score = MIN_SCORE; score <= MAX_SCORE; score++) {
+      SHARED_SCORES[score] = new AbilityScore(score);
+    }
+  }
+
   /** Valeur de la caractéristique. */
-  private int score;
+  private final int score;
+
+  /** Modificateur correspondant. */
+  private final int modifier;
 
   /**
    * Génère une valeur de caractéristique de manière aléatoire.
@@ -30,10 +41,16 @@ public class AbilityScore implements Comparable<AbilityScore> {
    * La valeur est la somme des trois meilleurs tirages.
    */
   public AbilityScore() {
-    DiceGroup fourD6 = new DiceGroup.Builder(4, d6).build();
-    int[] values = fourD6.roll();
-    int minValues = Arrays.stream(values).min().orElseThrow(NoSuchElementException::new);
-    score = Arrays.stream(values).sum() - minValues;
+    this(Dice.getRandomSource());
+  }
+
+  /**
+   * Génère une valeur de caractéristique de manière aléatoire à partir d'une source aléatoire.
+   *
+   * @param randomSource la source aléatoire
+   */
+  public AbilityScore(RandomSource randomSource) {
+    this(DiceGroup.of(4, d6).keepHighest(3, randomSource));
   }
 
   /**
@@ -46,6 +63,31 @@ public class AbilityScore implements Comparable<AbilityScore> {
     if (!isValid()) {
       throw new IllegalArgumentException(MSG_SCORE_INVALID);
     }
+    this.modifier = floorDiv(score - 10, 2);
+  }
+
+  /**
+   * Retourne l'instance partagée correspondant à une valeur.
+   *
+   * @param score la valeur
+   * @return la valeur de caractéristique
+   */
+  public static AbilityScore of(int score) {
+    if (score < MIN_SCORE || score > MAX_SCORE) {
+      throw new IllegalArgumentException(MSG_SCORE_INVALID);
+    }
+    return SHARED_SCORES[score];
+  }
+
+  /**
+   * Génère une valeur de caractéristique de manière aléatoire (4d6 en conservant les 3 meilleurs)
+   * et retourne l'instance partagée correspondante.
+   *
+   * @param randomSource la source aléatoire
+   * @return la valeur de caractéristique
+   */
+  public static AbilityScore random(RandomSource randomSource) {
+    return SHARED_SCORES[DiceGroup.of(4, d6).keepHighest(3, randomSource)];
   }
 
   /**
@@ -72,7 +114,7 @@ public class AbilityScore implements Comparable<AbilityScore> {
    * @return le modificateur
    */
   public int getModifier() {
-    return floorDiv(score - 10, 2);
+    return modifier;
   }
 
   @Override
@@ -0,0 +1,187 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import static fr.uvsq.hal.pglp.rpg.CharacterBuilder.MAX_SUM_SCORE;
+import static fr.uvsq.hal.pglp.rpg.CharacterBuilder.MIN_SUM_SCORE;
+import static fr.uvsq.hal.pglp.rpg.Dice.d6;
+
+/**
+ * L'énumération <code>AbilityScoresSampler</code> représente les modes de génération
+ * des six scores de caractéristiques d'un personnage.
+ * Chaque score suit la loi 4d6 en conservant les 3 meilleurs dés
+ * et la somme des six scores doit être comprise entre <code>MIN_SUM_SCORE</code> et <code>MAX_SUM_SCORE</code>.
+ * Les deux modes produisent la même loi.
+ *
+ * @author hal
+ * @version 2022
+ */
+public enum AbilityScoresSampler {
+  /** Tire six scores et recommence tant que la somme n'est pas valide. */
+  Rejection {
+    @Override
+    public AbilityScore[] sample(RandomSource randomSource) {
+      AbilityScore[] abilityScores = new AbilityScore[NUMBER_OF_SCORES];
+      int abilitySum;
+      do {
+        ATTEMPTS.increment();
+        abilitySum = 0;
+        for (int i = 0; i < abilityScores.length; i++) {
+          abilityScores[i] = AbilityScore.random(randomSource);
+          abilitySum += abilityScores[i].getScore();
+        }
+      } while (abilitySum < MIN_SUM_SCORE || abilitySum > MAX_SUM_SCORE);
+      ACCEPTED.increment();
+      return abilityScores;
+    }
+  },
+
+  /**
+   * Tire directement chaque score selon la loi conditionnelle sachant que la somme sera valide.
+   * Le coût est constant : un tirage et une recherche parmi 16 valeurs par score.
+   */
+  Direct {
+    @Override
+    public AbilityScore[] sample(RandomSource randomSource) {
+      AbilityScore[] abilityScores = new AbilityScore[NUMBER_OF_SCORES];
+      int partialSum = 0;
+      for (int i = 0; i < NUMBER_OF_SCORES; i++) {
+        double[] cumulative = CONDITIONAL[i][partialSum];
+        double u = randomSource.nextDouble();
+        int index = 0;
+        while (index < cumulative.length - 1 && cumulative[index] <= u) {
+          index++;
+        }
+        int score = MIN_ROLL + index;
+        abilityScores[i] = AbilityScore.of(score);
+        partialSum += score;
+      }
+      return abilityScores;
+    }
+  };
+
+  /** Nombre de scores à générer. */
+  private static final int NUMBER_OF_SCORES = Ability.values().length;
+
+  private static final Distribution SCORE_DISTRIBUTION = DiceGroup.of(4, d6).keepHighestDistribution(3);
+  private static final int MIN_ROLL = SCORE_DISTRIBUTION.getMin();
+  private static final int MAX_ROLL = SCORE_DISTRIBUTION.getMax();
+
+  /**
+   * Fonction de répartition de la somme de k scores : <code>CUMULATIVE[k][s]</code> = P(somme &lt;= s).
+   */
+  private static final double[][] CUMULATIVE = new double[NUMBER_OF_SCORES + 1][NUMBER_OF_SCORES * MAX_ROLL + 1];
+
+  static {
+    double[] sumOfScores = { 1.0 };
+    for (int k = 0; k <= NUMBER_OF_SCORES; k++) {
+      double cumulated = 0.0;
+      for (int s = 0; s < CUMULATIVE[k].length; s++) {
+        cumulated += s < sumOfScores.length ? sumOfScores[s] : 0.0;
+        CUMULATIVE[k][s] = cumulated;
+      }
+      double[] next = new double[sumOfScores.length + MAX_ROLL];
+      for (int s = 0; s < sumOfScores.length; s++) {
+        for (int score = MIN_ROLL; score <= MAX_ROLL; score++) {
+          next[s + score] += sumOfScores[s] * SCORE_DISTRIBUTION.probability(score);
+        }
+      }
+      sumOfScores = next;
+    }
+  }
+
+  /**
+   * Loi conditionnelle du score de rang i sachant la somme des scores précédents :
+   * <code>CONDITIONAL[i][partialSum][score - MIN_ROLL]</code> est la fonction de répartition normalisée
+   * (null si la somme partielle ne permet pas d'atteindre une somme valide).
+   */
+  private static final double[][][] CONDITIONAL = new double[NUMBER_OF_SCORES][MAX_SUM_SCORE + 1][];
+
+  static {
+    for (int i = 0; i < NUMBER_OF_SCORES; i++) {
+      int remaining = NUMBER_OF_SCORES - i - 1;
+      for (int partialSum = 0; partialSum <= MAX_SUM_SCORE; partialSum++) {
+        double[] cumulative = new double[MAX_ROLL - MIN_ROLL + 1];
+        double total = 0.0;
+        for (int score = MIN_ROLL; score <= MAX_ROLL; score++) {
+          total += weight(remaining, partialSum, score);
+          cumulative[score - MIN_ROLL] = total;
+        }
+        if (total > 0.0) {
+          for (int j = 0; j < cumulative.length; j++) {
+            cumulative[j] /= total;
+          }
+          CONDITIONAL[i][partialSum] = cumulative;
+        }
+      }
+    }
+  }
+
+  private static final LongAdder ATTEMPTS = new LongAdder();
+  private static final LongAdder ACCEPTED = new LongAdder();
+
+  /**
+   * Génère six scores de caractéristiques dont la somme est valide.
+   *
+   * @param randomSource la source aléatoire
+   * @return les scores (dans un ordre quelconque)
+   */
+  public abstract AbilityScore[] sample(RandomSource randomSource);
+
+  /**
+   * Pondération d'un score sachant la somme des scores déjà tirés :
+   * sa probabilité multipliée par celle que les scores restants complètent une somme valide.
+   */
+  private static double weight(int remaining, int partialSum, int score) {
+    int low = MIN_SUM_SCORE - partialSum - score;
+    int high = MAX_SUM_SCORE - partialSum - score;
+    return SCORE_DISTRIBUTION.probability(score) * sumProbability(remaining, low, high);
+  }
+
+  /** Probabilité que la somme de k scores soit comprise entre low et high. */
+  private static double sumProbability(int k, int low, int high) {
+    double[] cumulative = CUMULATIVE[k];
+    if (high < 0 || low >= cumulative.length) {
+      return 0.0;
+    }
+    double upper = cumulative[Math.min(high, cumulative.length - 1)];
+    double lower = low <= 0 ? 0.0 : cumulative[low - 1];
+    return upper - lower;
+  }
+
+  /**
+   * Retourne la probabilité théorique qu'un tirage de six scores ait une somme valide.
+   *
+   * @return le taux d'acceptation théorique du mode <code>Rejection</code>
+   */
+  public static double expectedAcceptanceRate() {
+    return sumProbability(NUMBER_OF_SCORES, MIN_SUM_SCORE, MAX_SUM_SCORE);
+  }
+
+  /**
+   * Retourne le nombre de tirages de six scores effectués par le mode <code>Rejection</code>.
+   *
+   * @return le nombre de tirages
+   */
+  public static long getRejectionAttempts() {
+    return ATTEMPTS.sum();
+  }
+
+  /**
+   * Retourne le taux d'acceptation observé du mode <code>Rejection</code>.
+   *
+   * @return la proportion de tirages acceptés (NaN si aucun tirage)
+   */
+  public static double getAcceptanceRate() {
+    long attempts = ATTEMPTS.sum();
+    return attempts == 0 ? Double.NaN : (double) ACCEPTED.sum() / attempts;
+  }
+
+  /**
+   * Remet à zéro les statistiques du mode <code>Rejection</code>.
+   */
+  public static void resetStatistics() {
+    ATTEMPTS.reset();
+    ACCEPTED.reset();
+  }
+}
@@ -0,0 +1,169 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * La classe <code>AsyncChecks</code> résout des tests de manière asynchrone.
+ * Chaque test est exécuté dans une tâche dédiée et son résultat détaillé est fourni par un
+ * <code>CompletableFuture</code>, ce qui permet d'enchaîner des traitements bloquants (persistance, audit)
+ * sans bloquer l'appelant.
+ * Par défaut, les tâches sont exécutées sur des threads virtuels lorsque la JVM les propose
+ * et sur un pool de threads classiques sinon.
+ * Chaque tâche dispose de sa propre source aléatoire, dérivée d'une source racine dans l'ordre des soumissions.
+ *
+ * @author hal
+ * @version 2022
+ */
+public class AsyncChecks implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger(AsyncChecks.class);
+
+  private static final long CLOSE_TIMEOUT_S = 10;
+
+  private final ExecutorService executor;
+  private final boolean ownedExecutor;
+  private final RandomSource root;
+
+  /**
+   * Crée une façade utilisant son propre exécuteur et une source aléatoire initialisée avec une graine.
+   *
+   * @param seed la graine de la source racine
+   */
+  public AsyncChecks(long seed) {
+    this(newPerTaskExecutor(), true, RandomSource.of(seed));
+  }
+
+  /**
+   * Crée une façade utilisant un exécuteur donné, qui n'est pas arrêté à la fermeture de la façade.
+   *
+   * @param executor l'exécuteur des tests
+   * @param root la source racine
+   */
+  public AsyncChecks(ExecutorService executor, RandomSource root) {
+    this(executor, false, root);
+  }
+
+  private AsyncChecks(ExecutorService executor, boolean ownedExecutor, RandomSource root) {
+    this.executor = Objects.requireNonNull(executor);
+    this.ownedExecutor = ownedExecutor;
+    this.root = Objects.requireNonNull(root);
+  }
+
+  /**
+   * Crée un exécuteur lançant un thread virtuel par tâche si la JVM le permet,
+   * un pool de threads démons sinon.
+   *
+   * @return l'exécuteur
+   */
+  public static ExecutorService newPerTaskExecutor() {
+    try {
+      Object executor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      return (ExecutorService) executor;
+    } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+      logger.debug("Virtual threads unavailable, using platform threads", e);
+      return Executors.newCachedThreadPool(new DaemonThreadFactory());
+    }
+  }
+
+  /**
+   * Réalise un test de caractéristique de manière asynchrone.
+   *
+   * @param character le personnage
+   * @param ability la caractéristique impliquée
+   * @param difficultyClass le degré de difficulté du test
+   * @param advantage avantage ou désavantage
+   * @return le résultat à venir du test
+   */
+  public CompletableFuture<CheckResult> checks(Character character, Ability ability,
+                                               DifficultyClass difficultyClass, Character.Advantage advantage) {
+    Objects.requireNonNull(ability);
+    return submit(character, source -> character.resolve(ability, difficultyClass, advantage, source));
+  }
+
+  /**
+   * Réalise un test de compétence de manière asynchrone.
+   *
+   * @param character le personnage
+   * @param skill la compétence impliquée
+   * @param difficultyClass le degré de difficulté du test
+   * @param advantage avantage ou désavantage
+   * @return le résultat à venir du test
+   */
+  public CompletableFuture<CheckResult> checks(Character character, Skill skill,
+                                               DifficultyClass difficultyClass, Character.Advantage advantage) {
+    Objects.requireNonNull(skill);
+    return submit(character, source -> character.resolve(skill, difficultyClass, advantage, source));
+  }
+
+  /**
+   * Réalise le même test de compétence pour plusieurs personnages, chacun dans sa propre tâche.
+   *
+   * @param characters les personnages
+   * @param skill la compétence impliquée
+   * @param difficultyClass le degré de difficulté du test
+   * @param advantage avantage ou désavantage
+   * @return les résultats à venir, dans l'ordre des personnages
+   */
+  public CompletableFuture<List<CheckResult>> checkAll(Collection<Character> characters, Skill skill,
+                                                       DifficultyClass difficultyClass,
+                                                       Character.Advantage advantage) {
+    List<CompletableFuture<CheckResult>> futures = new ArrayList<>(characters.size());
+    for (Character character : characters) {
+      futures.add(checks(character, skill, difficultyClass, advantage));
+    }
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+      .thenApply(ignored -> futures.stream().map(CompletableFuture::join).toList());
+  }
+
+  private CompletableFuture<CheckResult> submit(Character character, Function<RandomSource, CheckResult> check) {
+    Objects.requireNonNull(character);
+    RandomSource source;
+    synchronized (root) {
+      source = root.split();
+    }
+    return CompletableFuture.supplyAsync(() -> check.apply(source), executor);
+  }
+
+  /**
+   * Arrête l'exécuteur s'il appartient à la façade, après la fin des tests en cours.
+   * Si l'attente est interrompue, les tests en cours sont interrompus et l'interruption est conservée.
+   */
+  @Override
+  public void close() {
+    if (ownedExecutor) {
+      executor.shutdown();
+      try {
+        if (!executor.awaitTermination(CLOSE_TIMEOUT_S, TimeUnit.SECONDS)) {
+          executor.shutdownNow();
+        }
+      } catch (InterruptedException e) {
+        executor.shutdownNow();
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /** Fabrique de threads démons nommés. */
+  private static final class DaemonThreadFactory implements ThreadFactory {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable task) {
+      Thread thread = new Thread(task, "checks-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,142 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * La classe <code>AsyncRollEventSink</code> transmet les événements par lots
+ * à un consommateur exécuté dans un thread dédié.
+ * Les threads qui lancent les dés se contentent de déposer l'événement dans une file bornée ;
+ * si la file est pleine, l'événement est abandonné et comptabilisé.
+ *
+ * @author hal
+ * @version 2022
+ */
+public class AsyncRollEventSink implements RollEventSink, AutoCloseable {
+  /** Taille par défaut d'un lot. */
+  public static final int DEFAULT_BATCH_SIZE = 256;
+
+  /** Capacité par défaut de la file. */
+  public static final int DEFAULT_QUEUE_CAPACITY = 65_536;
+
+  private static final long POLL_TIMEOUT_MS = 100;
+
+  private final BlockingQueue<RollEvent> queue;
+  private final Consumer<List<RollEvent>> batchConsumer;
+  private final int batchSize;
+  private final AtomicLong droppedEvents = new AtomicLong();
+  private final Thread worker;
+  private volatile boolean running = true;
+
+  /**
+   * Crée un récepteur asynchrone avec les paramètres par défaut.
+   *
+   * @param batchConsumer le consommateur des lots d'événements
+   */
+  public AsyncRollEventSink(Consumer<List<RollEvent>> batchConsumer) {
+    this(batchConsumer, DEFAULT_BATCH_SIZE, DEFAULT_QUEUE_CAPACITY);
+  }
+
+  /**
+   * Crée un récepteur asynchrone.
+   *
+   * @param batchConsumer le consommateur des lots d'événements
+   * @param batchSize la taille maximale d'un lot
+   * @param queueCapacity la capacité de la file
+   */
+  public AsyncRollEventSink(Consumer<List<RollEvent>> batchConsumer, int batchSize, int queueCapacity) {
+    this.batchConsumer = Objects.requireNonNull(batchConsumer);
+    this.batchSize = batchSize;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.worker = new Thread(this::drain, "roll-events");
+    this.worker.setDaemon(true);
+    this.worker.start();
+  }
+
+  /**
+   * Crée un récepteur asynchrone qui journalise les événements au niveau DEBUG.
+   *
+   * @param logger le logger
+   * @return le récepteur
+   */
+  public static AsyncRollEventSink logging(Logger logger) {
+    return new AsyncRollEventSink(batch -> {
+      if (logger.isDebugEnabled()) {
+        batch.forEach(event -> logger.debug("{}", event));
+      }
+    });
+  }
+
+  @Override
+  public void onRoll(Dice dice, int value) {
+    publish(RollEvent.roll(dice, value));
+  }
+
+  @Override
+  public void onCheck(int rolled, int modifier, DifficultyClass difficultyClass, Character.Advantage advantage,
+                      boolean success) {
+    publish(RollEvent.check(rolled, modifier, difficultyClass, advantage, success));
+  }
+
+  private void publish(RollEvent event) {
+    if (!queue.offer(event)) {
+      droppedEvents.incrementAndGet();
+    }
+  }
+
+  /**
+   * Retourne le nombre d'événements abandonnés car la file était pleine.
+   *
+   * @return le nombre d'événements abandonnés
+   */
+  public long getDroppedEvents() {
+    return droppedEvents.get();
+  }
+
+  private void drain() {
+    List<RollEvent> batch = new ArrayList<>(batchSize);
+    try {
+      while (running) {
+        RollEvent first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        if (first != null) {
+          batch.add(first);
+          queue.drainTo(batch, batchSize - 1);
+          deliver(batch);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    while (queue.drainTo(batch, batchSize) > 0) {
+      deliver(batch);
+    }
+  }
+
+  private void deliver(List<RollEvent> batch) {
+    batchConsumer.accept(List.copyOf(batch));
+    batch.clear();
+  }
+
+  /**
+   * Arrête le thread de traitement après avoir transmis les événements en attente.
+   * Si l'attente est interrompue, le thread de traitement est interrompu et l'interruption est conservée.
+   */
+  @Override
+  public void close() {
+    running = false;
+    try {
+      worker.join();
+    } catch (InterruptedException e) {
+      worker.interrupt();
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -1,8 +1,5 @@
 package fr.uvsq.hal.pglp.rpg;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 import java.util.*;
 
 import static fr.uvsq.hal.pglp.rpg.Dice.d20;
@@ -17,7 +14,27 @@ public class Character {
   /** Avantage ou désavantage pour les tests. */
   public enum Advantage { Advantage, None, Disadvantage }
 
-  private final Logger logger = LoggerFactory.getLogger(Character.class);
+  private static final Ability[] ABILITIES = Ability.values();
+  private static final Skill[] SKILLS = Skill.values();
+
+  /**
+   * Probabilité d'obtenir au moins une valeur au d20, indexée par avantage puis par valeur (0 à 21).
+   */
+  private static final double[][] D20_AT_LEAST = new double[Advantage.values().length][];
+
+  static {
+    D20_AT_LEAST[Advantage.Advantage.ordinal()] = atLeastTable(DiceGroup.of(2, d20).maxDistribution());
+    D20_AT_LEAST[Advantage.None.ordinal()] = atLeastTable(DiceGroup.of(1, d20).sumDistribution());
+    D20_AT_LEAST[Advantage.Disadvantage.ordinal()] = atLeastTable(DiceGroup.of(2, d20).minDistribution());
+  }
+
+  private static double[] atLeastTable(Distribution distribution) {
+    double[] table = new double[distribution.getMax() + 2];
+    for (int value = 0; value < table.length; value++) {
+      table[value] = distribution.atLeast(value);
+    }
+    return table;
+  }
 
   //TODO Race
   //TODO Class
@@ -34,16 +51,60 @@ public class Character {
   /** Compétences. */
   private final Set<Skill> skills;
 
+  /** Source aléatoire des tests (la source par défaut des dés si null). */
+  private final RandomSource randomSource;
+
+  /** Modificateurs de caractéristique, indexés par l'ordinal de la caractéristique. */
+  private final int[] abilityModifiers = new int[ABILITIES.length];
+
+  /** Bonus de compétence, indexés par l'ordinal de la compétence. */
+  private final int[] skillModifiers = new int[SKILLS.length];
+
   /**
    * Construit un personnage à partir d'un builder.
    *
    * @param builder le builder
    */
   Character(CharacterBuilder builder) {
-    this.name = builder.name;
-    this.abilities = builder.abilities;
-    this.proficiencyBonus = builder.proficiencyBonus;
-    this.skills = builder.skills;
+    this(builder.name, new EnumMap<>(builder.abilities), builder.proficiencyBonus, Skill.toMask(builder.skills),
+        builder.randomSource);
+  }
+
+  /**
+   * Construit un personnage directement à partir de ses champs élémentaires, sans passer par un builder.
+   * Utilisé pour décoder en masse des personnages déjà validés (représentation compacte).
+   *
+   * @param name le nom
+   * @param abilityScores les scores indexés par l'ordinal des caractéristiques
+   * @param proficiencyBonus le bonus de maîtrise
+   * @param skillMask le masque des compétences maîtrisées
+   */
+  Character(String name, int[] abilityScores, int proficiencyBonus, int skillMask) {
+    this(CharacterBuilder.validateName(name), abilities(abilityScores), proficiencyBonus, skillMask, null);
+  }
+
+  private Character(String name, Map<Ability, AbilityScore> abilities, int proficiencyBonus, int skillMask,
+                    RandomSource randomSource) {
+    this.name = name;
+    this.abilities = abilities;
+    this.proficiencyBonus = proficiencyBonus;
+    this.skills = Skill.fromMask(skillMask);
+    this.randomSource = randomSource;
+    for (Ability ability : ABILITIES) {
+      abilityModifiers[ability.ordinal()] = abilities.get(ability).getModifier();
+    }
+    for (Skill skill : SKILLS) {
+      int bonus = abilityModifiers[skill.getAbility().ordinal()];
+      skillModifiers[skill.ordinal()] = skills.contains(skill) ? bonus + proficiencyBonus : bonus;
+    }
+  }
+
+  private static Map<Ability, AbilityScore> abilities(int[] abilityScores) {
+    Map<Ability, AbilityScore> abilities = new EnumMap<>(Ability.class);
+    for (Ability ability : ABILITIES) {
+      abilities.put(ability, AbilityScore.of(abilityScores[ability.ordinal()]));
+    }
+    return abilities;
   }
 
   /**
@@ -66,6 +127,16 @@ public class Character {
     return abilities.get(ability);
   }
 
+  /**
+   * Retourne le modificateur d'une caractéristique.
+   *
+   * @param ability la caractéristique
+   * @return le modificateur
+   */
+  public int getModifier(Ability ability) {
+    return abilityModifiers[ability.ordinal()];
+  }
+
   /**
    * Retourne le bonus de maîtrise.
    *
@@ -75,6 +146,24 @@ public class Character {
     return proficiencyBonus;
   }
 
+  /**
+   * Retourne les compétences maîtrisées par le personnage.
+   *
+   * @return une vue non modifiable des compétences
+   */
+  Set<Skill> getSkills() {
+    return Collections.unmodifiableSet(skills);
+  }
+
+  /**
+   * Retourne la source aléatoire propre au personnage.
+   *
+   * @return la source des tests, ou null si le personnage utilise la source par défaut des dés
+   */
+  RandomSource getRandomSource() {
+    return randomSource;
+  }
+
   /**
    * Vérifie si le personnage maîtrise la compétence.
    *
@@ -92,9 +181,7 @@ public class Character {
    * @return le bonus
    */
   public int getProficiencyBonusIn(Skill skill) {
-    Ability ability = skill.getAbility();
-    int bonus = get(ability).getModifier();
-    return isProficientIn(skill) ? bonus + getProficiencyBonus() : bonus;
+    return skillModifiers[skill.ordinal()];
   }
 
   /**
@@ -105,7 +192,7 @@ public class Character {
    * @return true si le test est réussi
    */
   public boolean checks(Ability ability, DifficultyClass difficultyClass) {
-    return check(roll20WithAdvantage(Advantage.None), get(ability).getModifier(), difficultyClass);
+    return checks(ability, difficultyClass, Advantage.None);
   }
 
   /**
@@ -117,7 +204,9 @@ public class Character {
    * @return true si le test est réussi
    */
   public boolean checks(Ability ability, DifficultyClass difficultyClass, Advantage advantage) {
-    return check(roll20WithAdvantage(advantage), get(ability).getModifier(), difficultyClass);
+    long start = RollMetrics.start();
+    return check(start, roll20WithAdvantage(advantage), abilityModifiers[ability.ordinal()], difficultyClass,
+      advantage);
   }
 
   /**
@@ -128,7 +217,7 @@ public class Character {
    * @return true si le test est réussi
    */
   public boolean checks(Skill skill, DifficultyClass difficultyClass) {
-    return check(roll20WithAdvantage(Advantage.None), getProficiencyBonusIn(skill), difficultyClass);
+    return checks(skill, difficultyClass, Advantage.None);
   }
 
   /**
@@ -140,20 +229,146 @@ public class Character {
    * @return true si le test est réussi
    */
   public boolean checks(Skill skill, DifficultyClass difficultyClass, Advantage advantage) {
-    return check(roll20WithAdvantage(advantage), getProficiencyBonusIn(skill), difficultyClass);
+    long start = RollMetrics.start();
+    return check(start, roll20WithAdvantage(advantage), skillModifiers[skill.ordinal()], difficultyClass, advantage);
+  }
+
+  /**
+   * Réalise un test de caractéristique et retourne son résultat détaillé.
+   *
+   * @param ability la caractéristique impliquée
+   * @param difficultyClass le degré de difficulté du test
+   * @param advantage avantage ou désavantage
+   * @param source la source aléatoire du test
+   * @return le résultat du test
+   */
+  public CheckResult resolve(Ability ability, DifficultyClass difficultyClass, Advantage advantage,
+                             RandomSource source) {
+    return resolve(abilityModifiers[ability.ordinal()], difficultyClass, advantage, source);
+  }
+
+  /**
+   * Réalise un test de compétence et retourne son résultat détaillé.
+   *
+   * @param skill la compétence impliquée
+   * @param difficultyClass le degré de difficulté du test
+   * @param advantage avantage ou désavantage
+   * @param source la source aléatoire du test
+   * @return le résultat du test
+   */
+  public CheckResult resolve(Skill skill, DifficultyClass difficultyClass, Advantage advantage,
+                             RandomSource source) {
+    return resolve(skillModifiers[skill.ordinal()], difficultyClass, advantage, source);
   }
 
-  private boolean check(final int d20Rolled, int modifier, DifficultyClass difficultyClass) {
-    logger.info("{} rolled = {}, modifier = {} , DC = {} ({})",
-      d20, d20Rolled, modifier, difficultyClass, difficultyClass.getDifficultyClass());
-    return d20Rolled + modifier >= difficultyClass.getDifficultyClass();
+  private static CheckResult resolve(int modifier, DifficultyClass difficultyClass, Advantage advantage,
+                                     RandomSource source) {
+    long start = RollMetrics.start();
+    int rolled = roll20WithAdvantage(advantage, source);
+    boolean success = check(start, rolled, modifier, difficultyClass, advantage);
+    return new CheckResult(rolled, modifier, difficultyClass, advantage, success);
+  }
+
+  private static boolean check(long start, int d20Rolled, int modifier, DifficultyClass difficultyClass,
+                               Advantage advantage) {
+    boolean success = check(d20Rolled, modifier, difficultyClass, advantage);
+    RollMetrics.checks(start, 1);
+    return success;
+  }
+
+  /**
+   * Compare le total d'un test au degré de difficulté et notifie le résultat aux récepteurs et aux mesures.
+   * La latence n'est pas mesurée : l'appelant la reporte avec <code>RollMetrics.checks</code>.
+   *
+   * @param d20Rolled la valeur retenue du d20
+   * @param modifier le modificateur du test
+   * @param difficultyClass le degré de difficulté du test
+   * @param advantage avantage ou désavantage
+   * @return true si le test est réussi, false sinon
+   */
+  static boolean check(int d20Rolled, int modifier, DifficultyClass difficultyClass, Advantage advantage) {
+    boolean success = d20Rolled + modifier >= difficultyClass.getDifficultyClass();
+    RollEvents.check(d20Rolled, modifier, difficultyClass, advantage, success);
+    RollMetrics.outcome(difficultyClass, advantage, success);
+    return success;
+  }
+
+  /**
+   * Calcule la probabilité exacte de réussir un test avec un modificateur donné.
+   *
+   * @param modifier le modificateur ajouté au d20
+   * @param difficultyClass le degré de difficulté du test
+   * @param advantage avantage ou désavantage
+   * @return la probabilité de réussite
+   */
+  public static double successProbability(int modifier, DifficultyClass difficultyClass, Advantage advantage) {
+    double[] table = D20_AT_LEAST[advantage.ordinal()];
+    int minimumRoll = difficultyClass.getDifficultyClass() - modifier;
+    return table[Math.max(0, Math.min(minimumRoll, table.length - 1))];
+  }
+
+  /**
+   * Calcule la probabilité de réussir un test de caractéristique.
+   *
+   * @param ability la caractéristique impliquée
+   * @param difficultyClass le degré de difficulté du test
+   * @return la probabilité de réussite
+   */
+  public double successProbability(Ability ability, DifficultyClass difficultyClass) {
+    return successProbability(ability, difficultyClass, Advantage.None);
+  }
+
+  /**
+   * Calcule la probabilité de réussir un test de caractéristique avec avantage/désavantage.
+   *
+   * @param ability la caractéristique impliquée
+   * @param difficultyClass le degré de difficulté du test
+   * @param advantage avantage ou désavantage
+   * @return la probabilité de réussite
+   */
+  public double successProbability(Ability ability, DifficultyClass difficultyClass, Advantage advantage) {
+    return successProbability(abilityModifiers[ability.ordinal()], difficultyClass, advantage);
+  }
+
+  /**
+   * Calcule la probabilité de réussir un test de compétence.
+   *
+   * @param skill la compétence impliquée
+   * @param difficultyClass le degré de difficulté du test
+   * @return la probabilité de réussite
+   */
+  public double successProbability(Skill skill, DifficultyClass difficultyClass) {
+    return successProbability(skill, difficultyClass, Advantage.None);
+  }
+
+  /**
+   * Calcule la probabilité de réussir un test de compétence avec avantage/désavantage.
+   *
+   * @param skill la compétence impliquée
+   * @param difficultyClass le degré de difficulté du test
+   * @param advantage avantage ou désavantage
+   * @return la probabilité de réussite
+   */
+  public double successProbability(Skill skill, DifficultyClass difficultyClass, Advantage advantage) {
+    return successProbability(skillModifiers[skill.ordinal()], difficultyClass, advantage);
   }
 
   private int roll20WithAdvantage(final Advantage advantage) {
+    return roll20WithAdvantage(advantage, randomSource != null ? randomSource : Dice.getRandomSource());
+  }
+
+  /**
+   * Lance le d20 d'un test avec avantage ou désavantage.
+   *
+   * @param advantage avantage ou désavantage
+   * @param source la source aléatoire
+   * @return la valeur retenue
+   */
+  static int roll20WithAdvantage(final Advantage advantage, final RandomSource source) {
     return switch (advantage) {
-      case Advantage -> new DiceGroup.Builder(2, d20).build().rollnMax();
-      case None -> d20.roll();
-      case Disadvantage -> new DiceGroup.Builder(2, d20).build().rollnMin();
+      case Advantage -> DiceGroup.of(2, d20).max(source);
+      case None -> d20.roll(source);
+      case Disadvantage -> DiceGroup.of(2, d20).min(source);
     };
   }
 }
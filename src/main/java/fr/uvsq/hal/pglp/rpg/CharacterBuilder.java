@@ -4,8 +4,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /**
  * La classe <code>CharacterBuilder</code> permet de créer un personnage.
@@ -31,13 +29,17 @@ public class CharacterBuilder {
   private static final String MSG_ORDER_MANDATORY = "The order between abilities have to be defined.";
   private static final String MSG_ORDER_VALID = "The abilities order should mention each ability once and only once.";
   private static final String MSG_SKILL_MANDATORY = "The skill is mandatory.";
+  private static final String MSG_SCORES_VALID = "The scores should mention each ability once and only once.";
 
-  private final Logger logger = LoggerFactory.getLogger(CharacterBuilder.class);
+  private static final Ability[] ABILITIES = Ability.values();
+
+  private static final Logger logger = LoggerFactory.getLogger(CharacterBuilder.class);
 
   final String name;
   Map<Ability, AbilityScore> abilities;
   int proficiencyBonus;
   Set<Skill> skills;
+  RandomSource randomSource;
 
   /**
    * Crée un personnage en générant les caractéristiques de manière aléatoire.
@@ -60,43 +62,92 @@ public class CharacterBuilder {
    *                       (chaque caractéristique doit être mentionnée une et une seule fois)
    */
   public CharacterBuilder(String name, Ability[] abilitiesOrder) {
+    this(name, abilitiesOrder, null);
+  }
+
+  /**
+   * Crée un personnage en générant les caractéristiques à partir d'une source aléatoire.
+   * La source ne sert qu'à la génération : la source des tests est fixée par <code>setRandomSource</code>.
+   *
+   * @param name le nom du personnage
+   * @param abilitiesOrder l'ordre de préférence des caractéristiques
+   *                       (chaque caractéristique doit être mentionnée une et une seule fois)
+   * @param randomSource la source aléatoire (la source par défaut des dés si null)
+   */
+  public CharacterBuilder(String name, Ability[] abilitiesOrder, RandomSource randomSource) {
+    this(name, abilitiesOrder, randomSource, AbilityScoresSampler.Rejection);
+  }
+
+  /**
+   * Crée un personnage en générant les caractéristiques selon un mode de génération.
+   *
+   * @param name le nom du personnage
+   * @param abilitiesOrder l'ordre de préférence des caractéristiques
+   *                       (chaque caractéristique doit être mentionnée une et une seule fois)
+   * @param randomSource la source aléatoire (la source par défaut des dés si null)
+   * @param sampler le mode de génération des scores
+   */
+  public CharacterBuilder(
+      String name, Ability[] abilitiesOrder, RandomSource randomSource, AbilityScoresSampler sampler) {
     validateName(name);
     this.name = name;
 
     validateAbilitiesOrder(abilitiesOrder);
-    int abilitySum;
-    AbilityScore[] abilityScores = new AbilityScore[Ability.values().length];
-    do {
-      Arrays.setAll(abilityScores, i -> new AbilityScore());
-      abilitySum = Arrays.stream(abilityScores).mapToInt(AbilityScore::getScore).sum();
-    } while (abilitySum < MIN_SUM_SCORE || abilitySum > MAX_SUM_SCORE);
+    RandomSource generationSource = randomSource != null ? randomSource : Dice.getRandomSource();
+    long start = RollMetrics.start();
+    abilities = assignAbilities(abilitiesOrder, sampler.sample(generationSource));
+    RollMetrics.generation(start);
+
+    this.proficiencyBonus = FIRST_LEVEL_PROFICIENCY_BONUS;
+    this.skills = EnumSet.noneOf(Skill.class);
+    logger.trace("{} : {}, {}", this.name, abilities, proficiencyBonus);
+  }
+
+  /**
+   * Attribue les scores par ordre décroissant selon l'ordre de préférence des caractéristiques.
+   */
+  private static Map<Ability, AbilityScore> assignAbilities(Ability[] abilitiesOrder, AbilityScore[] abilityScores) {
     Arrays.sort(abilityScores, Comparator.reverseOrder());
-    abilities = IntStream
-      .range(0, Ability.values().length)
-      .boxed()
-      .collect(
-        Collectors.toMap(
-          i -> abilitiesOrder[i],
-          i -> abilityScores[i],
-          (a1, a2) -> a1 /* never used */,
-          () -> new EnumMap<>(Ability.class)));
+    Map<Ability, AbilityScore> abilities = new EnumMap<>(Ability.class);
+    for (int i = 0; i < abilitiesOrder.length; i++) {
+      abilities.put(abilitiesOrder[i], abilityScores[i]);
+    }
+    return abilities;
+  }
 
+  /**
+   * Crée un personnage avec des scores de caractéristiques donnés.
+   *
+   * @param name le nom du personnage
+   * @param abilityScores les scores indexés par l'ordinal des caractéristiques
+   *                      (Force, Dextérité, Constitution, Intelligence, Sagesse, Charisme)
+   */
+  public CharacterBuilder(String name, int[] abilityScores) {
+    validateName(name);
+    this.name = name;
+    if (abilityScores.length != ABILITIES.length) {
+      throw new IllegalArgumentException(MSG_SCORES_VALID);
+    }
+    abilities = new EnumMap<>(Ability.class);
+    for (Ability ability : ABILITIES) {
+      abilities.put(ability, AbilityScore.of(abilityScores[ability.ordinal()]));
+    }
     this.proficiencyBonus = FIRST_LEVEL_PROFICIENCY_BONUS;
     this.skills = EnumSet.noneOf(Skill.class);
-    logger.debug("{} : {}, {}", this.name, abilities, proficiencyBonus);
   }
 
-  private void validateName(String name) {
+  static String validateName(String name) {
     Objects.requireNonNull(name, MSG_NAME_MANDATORY);
     if (name.isBlank()) {
       throw new IllegalArgumentException(MSG_NAME_NOT_BLANK);
     }
+    return name;
   }
 
-  private void validateAbilitiesOrder(Ability[] abilitiesOrder) {
+  static void validateAbilitiesOrder(Ability[] abilitiesOrder) {
     Objects.requireNonNull(abilitiesOrder, MSG_ORDER_MANDATORY);
     Set<Ability> abilitySet = Set.of(abilitiesOrder);
-    if (abilitySet.size() != Ability.values().length || abilitiesOrder.length != Ability.values().length) {
+    if (abilitySet.size() != ABILITIES.length || abilitiesOrder.length != ABILITIES.length) {
       throw new IllegalArgumentException(MSG_ORDER_VALID);
     }
   }
@@ -120,18 +171,9 @@ public class CharacterBuilder {
    */
   public CharacterBuilder nonRamdomAbilities(Ability[] abilitiesOrder) {
     validateAbilitiesOrder(abilitiesOrder);
-    AbilityScore[] abilityScores = new AbilityScore[Ability.values().length];
-    Arrays.setAll(abilityScores, i -> new AbilityScore(PREDEFINED_SCORES[i]));
-    Arrays.sort(abilityScores, Comparator.reverseOrder());
-    abilities = IntStream
-      .range(0, Ability.values().length)
-      .boxed()
-      .collect(
-        Collectors.toMap(
-          i -> abilitiesOrder[i],
-          i -> abilityScores[i],
-          (a1, a2) -> a1 /* never used */,
-          () -> new EnumMap<>(Ability.class)));
+    AbilityScore[] abilityScores = new AbilityScore[ABILITIES.length];
+    Arrays.setAll(abilityScores, i -> AbilityScore.of(PREDEFINED_SCORES[i]));
+    abilities = assignAbilities(abilitiesOrder, abilityScores);
     logger.debug("{} : {}", this.name, abilities);
     return this;
   }
@@ -145,7 +187,7 @@ public class CharacterBuilder {
    * @return le builder
    */
   public CharacterBuilder setAbility(Ability ability, int score) {
-    abilities.put(ability, new AbilityScore(score));
+    abilities.put(ability, AbilityScore.of(score));
     logger.debug("{} : {}", ability, abilities.get(ability));
     return this;
   }
@@ -162,6 +204,18 @@ public class CharacterBuilder {
     return this;
   }
 
+  /**
+   * Fixe la source aléatoire utilisée pour les tests du personnage.
+   *
+   * @param randomSource la source aléatoire
+   *
+   * @return le builder
+   */
+  public CharacterBuilder setRandomSource(RandomSource randomSource) {
+    this.randomSource = Objects.requireNonNull(randomSource);
+    return this;
+  }
+
   /**
    * Indique les compétences que le personnage maîtrise.
    *
@@ -170,7 +224,19 @@ public class CharacterBuilder {
    */
   public CharacterBuilder isProficientIn(Skill... skills) {
     Objects.requireNonNull(skills, MSG_SKILL_MANDATORY);
-    this.skills = EnumSet.copyOf(Arrays.asList(skills));
+    return isProficientIn(Arrays.asList(skills));
+  }
+
+  /**
+   * Indique les compétences que le personnage maîtrise.
+   *
+   * @param skills les compétences
+   * @return le builder
+   */
+  public CharacterBuilder isProficientIn(Collection<Skill> skills) {
+    Objects.requireNonNull(skills, MSG_SKILL_MANDATORY);
+    this.skills = EnumSet.noneOf(Skill.class);
+    this.skills.addAll(skills);
     return this;
   }
 }
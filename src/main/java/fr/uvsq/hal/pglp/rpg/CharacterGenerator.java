@@ -0,0 +1,127 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import java.util.*;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * La classe <code>CharacterGenerator</code> génère des personnages en masse (populations de PNJ).
+ * La génération est découpée en partitions de taille fixe traitées en parallèle.
+ * Chaque partition dispose de sa propre source aléatoire, dérivée de la graine dans l'ordre des partitions :
+ * le résultat ne dépend donc que de la graine, et pas du nombre de cœurs.
+ *
+ * @author hal
+ * @version 2022
+ */
+public class CharacterGenerator {
+  /** Nombre de personnages générés par partition. */
+  public static final int PARTITION_SIZE = 4096;
+
+  private static final String MSG_COUNT_POSITIVE = "The number of characters have to be positive.";
+
+  private final long seed;
+  private Ability[] abilitiesOrder = Ability.values();
+  private int proficiencyBonus = CharacterBuilder.FIRST_LEVEL_PROFICIENCY_BONUS;
+  private Skill[] skills = new Skill[0];
+  private IntFunction<String> naming = i -> "NPC-" + i;
+  private AbilityScoresSampler sampler = AbilityScoresSampler.Direct;
+
+  /**
+   * Crée un générateur.
+   *
+   * @param seed la graine de la génération
+   */
+  public CharacterGenerator(long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * Fixe l'ordre de préférence des caractéristiques.
+   *
+   * @param abilitiesOrder l'ordre de préférence des caractéristiques
+   * @return le générateur
+   */
+  public CharacterGenerator setAbilitiesOrder(Ability[] abilitiesOrder) {
+    this.abilitiesOrder = abilitiesOrder.clone();
+    return this;
+  }
+
+  /**
+   * Fixe le bonus de maîtrise des personnages.
+   *
+   * @param proficiencyBonus le bonus de maîtrise
+   * @return le générateur
+   */
+  public CharacterGenerator setProficiencyBonus(int proficiencyBonus) {
+    this.proficiencyBonus = proficiencyBonus;
+    return this;
+  }
+
+  /**
+   * Indique les compétences que les personnages maîtrisent.
+   *
+   * @param skills les compétences
+   * @return le générateur
+   */
+  public CharacterGenerator isProficientIn(Skill... skills) {
+    this.skills = skills.clone();
+    return this;
+  }
+
+  /**
+   * Fixe le nom des personnages en fonction de leur rang.
+   *
+   * @param naming la fonction de nommage
+   * @return le générateur
+   */
+  public CharacterGenerator setNaming(IntFunction<String> naming) {
+    this.naming = Objects.requireNonNull(naming);
+    return this;
+  }
+
+  /**
+   * Fixe le mode de génération des scores (<code>Direct</code> par défaut).
+   *
+   * @param sampler le mode de génération
+   * @return le générateur
+   */
+  public CharacterGenerator setSampler(AbilityScoresSampler sampler) {
+    this.sampler = Objects.requireNonNull(sampler);
+    return this;
+  }
+
+  /**
+   * Génère des personnages.
+   *
+   * @param count le nombre de personnages
+   * @return les personnages, dans l'ordre de leur rang
+   */
+  public List<Character> generate(int count) {
+    if (count < 0) {
+      throw new IllegalArgumentException(MSG_COUNT_POSITIVE);
+    }
+    int partitions = (count + PARTITION_SIZE - 1) / PARTITION_SIZE;
+    RandomSource root = RandomSource.of(seed);
+    RandomSource[] sources = new RandomSource[partitions];
+    for (int p = 0; p < partitions; p++) {
+      sources[p] = root.split();
+    }
+    Character[] characters = new Character[count];
+    IntStream.range(0, partitions).parallel().forEach(p -> {
+      int end = Math.min(count, (p + 1) * PARTITION_SIZE);
+      for (int i = p * PARTITION_SIZE; i < end; i++) {
+        characters[i] = generate(i, sources[p]);
+      }
+    });
+    return Arrays.asList(characters);
+  }
+
+  private Character generate(int rank, RandomSource randomSource) {
+    CharacterBuilder builder = new CharacterBuilder(naming.apply(rank), abilitiesOrder, randomSource, sampler)
+        .setProficiencyBonus(proficiencyBonus);
+    if (skills.length > 0) {
+      builder.isProficientIn(skills);
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,209 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import java.util.*;
+
+/**
+ * La classe <code>CharacterIndex</code> est un index secondaire, immuable, sur une population de personnages.
+ * Chaque compétence est associée à l'ensemble (bitmap) des personnages qui la maîtrisent
+ * et chaque caractéristique à un ensemble de personnages par score (de 1 à 20).
+ * Pour chaque compétence, les personnages sont aussi classés par bonus décroissant
+ * (tri par dénombrement à la première recherche des meilleurs), ce qui rend immédiates les recherches suivantes.
+ * Chaque classement occupe un entier par personnage : il n'est construit que pour les compétences recherchées.
+ * Les personnages sont désignés par leur indice dans la population indexée.
+ *
+ * @author hal
+ * @version 2022
+ */
+public class CharacterIndex {
+  private static final String MSG_SCORE_INVALID = "The score is invalid.";
+  private static final String MSG_K_INVALID = "The number of characters cannot be negative.";
+
+  private static final Ability[] ABILITIES = Ability.values();
+  private static final Skill[] SKILLS = Skill.values();
+
+  private final List<Character> characters;
+  private final BitSet[] proficient = new BitSet[SKILLS.length];
+  private final BitSet[][] scoreBuckets = new BitSet[ABILITIES.length][AbilityScore.MAX_SCORE + 1];
+  /** Indices des personnages par bonus décroissant puis par indice croissant (null si pas encore classés). */
+  private final int[][] rankings = new int[SKILLS.length][];
+
+  /**
+   * Indexe une population de personnages.
+   *
+   * @param characters les personnages
+   */
+  public CharacterIndex(Collection<Character> characters) {
+    this.characters = List.copyOf(characters);
+    for (Skill skill : SKILLS) {
+      proficient[skill.ordinal()] = new BitSet(this.characters.size());
+    }
+    for (BitSet[] buckets : scoreBuckets) {
+      for (int score = AbilityScore.MIN_SCORE; score <= AbilityScore.MAX_SCORE; score++) {
+        buckets[score] = new BitSet();
+      }
+    }
+    for (int i = 0; i < this.characters.size(); i++) {
+      Character character = this.characters.get(i);
+      for (Skill skill : SKILLS) {
+        if (character.isProficientIn(skill)) {
+          proficient[skill.ordinal()].set(i);
+        }
+      }
+      for (Ability ability : ABILITIES) {
+        scoreBuckets[ability.ordinal()][character.get(ability).getScore()].set(i);
+      }
+    }
+  }
+
+  /**
+   * Retourne le classement des personnages pour une compétence, en le construisant au premier appel.
+   */
+  private synchronized int[] ranking(Skill skill) {
+    int[] ranking = rankings[skill.ordinal()];
+    if (ranking == null) {
+      int[] bonuses = new int[characters.size()];
+      for (int i = 0; i < bonuses.length; i++) {
+        bonuses[i] = characters.get(i).getProficiencyBonusIn(skill);
+      }
+      ranking = rankByBonus(bonuses);
+      rankings[skill.ordinal()] = ranking;
+    }
+    return ranking;
+  }
+
+  /**
+   * Classe des indices par bonus décroissant puis par indice croissant (tri par dénombrement,
+   * le bonus ne prenant que quelques valeurs).
+   */
+  private static int[] rankByBonus(int[] bonuses) {
+    if (bonuses.length == 0) {
+      return bonuses;
+    }
+    int minBonus = Integer.MAX_VALUE;
+    int maxBonus = Integer.MIN_VALUE;
+    for (int bonus : bonuses) {
+      minBonus = Math.min(minBonus, bonus);
+      maxBonus = Math.max(maxBonus, bonus);
+    }
+    int[] offsets = new int[maxBonus - minBonus + 1];
+    for (int bonus : bonuses) {
+      offsets[maxBonus - bonus]++;
+    }
+    for (int bucket = 0, offset = 0; bucket < offsets.length; bucket++) {
+      int count = offsets[bucket];
+      offsets[bucket] = offset;
+      offset += count;
+    }
+    int[] ranking = new int[bonuses.length];
+    for (int i = 0; i < bonuses.length; i++) {
+      ranking[offsets[maxBonus - bonuses[i]]++] = i;
+    }
+    return ranking;
+  }
+
+  /**
+   * Retourne le nombre de personnages indexés.
+   *
+   * @return le nombre de personnages
+   */
+  public int size() {
+    return characters.size();
+  }
+
+  /**
+   * Retourne un personnage indexé.
+   *
+   * @param index l'indice du personnage
+   * @return le personnage
+   */
+  public Character get(int index) {
+    return characters.get(index);
+  }
+
+  /**
+   * Retourne les personnages d'un ensemble d'indices.
+   *
+   * @param indexes les indices
+   * @return les personnages, par indice croissant
+   */
+  public List<Character> get(BitSet indexes) {
+    List<Character> selected = new ArrayList<>(indexes.cardinality());
+    indexes.stream().forEach(i -> selected.add(characters.get(i)));
+    return selected;
+  }
+
+  /**
+   * Retourne les personnages maîtrisant une compétence.
+   *
+   * @param skill la compétence
+   * @return l'ensemble des indices (une copie modifiable)
+   */
+  public BitSet proficientIn(Skill skill) {
+    return (BitSet) proficient[skill.ordinal()].clone();
+  }
+
+  /**
+   * Retourne les personnages dont le score d'une caractéristique est compris entre deux bornes.
+   *
+   * @param ability la caractéristique
+   * @param min le score minimum (inclus)
+   * @param max le score maximum (inclus)
+   * @return l'ensemble des indices (une copie modifiable)
+   */
+  public BitSet withScoreBetween(Ability ability, int min, int max) {
+    if (min > max || min < AbilityScore.MIN_SCORE || max > AbilityScore.MAX_SCORE) {
+      throw new IllegalArgumentException(MSG_SCORE_INVALID);
+    }
+    BitSet selected = new BitSet(characters.size());
+    for (int score = min; score <= max; score++) {
+      selected.or(scoreBuckets[ability.ordinal()][score]);
+    }
+    return selected;
+  }
+
+  /**
+   * Retourne les personnages dont le score d'une caractéristique est au moins égal à une valeur.
+   *
+   * @param ability la caractéristique
+   * @param min le score minimum (inclus)
+   * @return l'ensemble des indices (une copie modifiable)
+   */
+  public BitSet withScoreAtLeast(Ability ability, int min) {
+    return withScoreBetween(ability, min, AbilityScore.MAX_SCORE);
+  }
+
+  /**
+   * Retourne les personnages maîtrisant une compétence avec un score minimum dans une caractéristique.
+   *
+   * @param skill la compétence
+   * @param ability la caractéristique
+   * @param min le score minimum (inclus)
+   * @return les personnages, par indice croissant
+   */
+  public List<Character> findProficientIn(Skill skill, Ability ability, int min) {
+    BitSet selected = withScoreAtLeast(ability, min);
+    selected.and(proficient[skill.ordinal()]);
+    return get(selected);
+  }
+
+  /**
+   * Retourne les k personnages ayant le meilleur bonus pour une compétence.
+   * Une fois le classement de la compétence construit, seuls les k premiers personnages sont parcourus.
+   *
+   * @param skill la compétence
+   * @param k le nombre de personnages
+   * @return au plus k personnages, par bonus décroissant puis par indice croissant
+   * @throws IllegalArgumentException si k est négatif
+   */
+  public List<Character> topK(Skill skill, int k) {
+    if (k < 0) {
+      throw new IllegalArgumentException(MSG_K_INVALID);
+    }
+    int[] ranking = ranking(skill);
+    Character[] top = new Character[Math.min(k, ranking.length)];
+    for (int i = 0; i < top.length; i++) {
+      top[i] = characters.get(ranking[i]);
+    }
+    return List.of(top);
+  }
+}
@@ -0,0 +1,301 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * La classe <code>CharacterStore</code> conserve une population de personnages en colonnes
+ * (un tableau primitif par caractéristique, un tableau de masques de compétences et un tableau de bonus de maîtrise).
+ * Les personnages sont désignés par leur indice d'insertion.
+ * Les tests en masse résolvent le même test pour toute la population en un seul parcours des colonnes.
+ *
+ * @author hal
+ * @version 2022
+ */
+public class CharacterStore {
+  private static final int DEFAULT_CAPACITY = 16;
+  private static final String MSG_INDEX_INVALID = "The index of the character is invalid.";
+  private static final String MSG_CAPACITY_INVALID = "The capacity of the store cannot be negative.";
+
+  private static final Ability[] ABILITIES = Ability.values();
+
+  /** Nombre de tests dont les d20 sont tirés en une fois. */
+  private static final int CHECKS_PER_BATCH = 512;
+
+  /** Modificateur associé à chaque score. */
+  private static final int[] MODIFIERS = new int[AbilityScore.MAX_SCORE + 1];
+
+  static {
+    for (int score = AbilityScore.MIN_SCORE; score <= AbilityScore.MAX_SCORE; score++) {
+      MODIFIERS[score] = AbilityScore.of(score).getModifier();
+    }
+  }
+
+  private String[] names;
+  private final byte[][] scores = new byte[ABILITIES.length][];
+  private int[] skills;
+  private byte[] proficiencyBonuses;
+  private int size;
+
+  /**
+   * Crée un stockage vide.
+   */
+  public CharacterStore() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Crée un stockage vide d'une capacité initiale donnée.
+   *
+   * @param capacity la capacité initiale
+   * @throws IllegalArgumentException si la capacité est négative
+   */
+  public CharacterStore(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException(MSG_CAPACITY_INVALID);
+    }
+    names = new String[capacity];
+    for (Ability ability : ABILITIES) {
+      scores[ability.ordinal()] = new byte[capacity];
+    }
+    skills = new int[capacity];
+    proficiencyBonuses = new byte[capacity];
+  }
+
+  /**
+   * Crée un stockage contenant des personnages.
+   *
+   * @param characters les personnages
+   */
+  public CharacterStore(Collection<Character> characters) {
+    this(characters.size());
+    characters.forEach(this::add);
+  }
+
+  /**
+   * Ajoute un personnage.
+   *
+   * @param character le personnage
+   * @return l'indice du personnage
+   */
+  public int add(Character character) {
+    return add(CompactCharacter.of(character));
+  }
+
+  /**
+   * Ajoute un personnage sous forme compacte.
+   *
+   * @param character le personnage
+   * @return l'indice du personnage
+   */
+  public int add(CompactCharacter character) {
+    Objects.requireNonNull(character);
+    if (size == names.length) {
+      grow();
+    }
+    names[size] = character.getName();
+    for (Ability ability : ABILITIES) {
+      scores[ability.ordinal()][size] = (byte) CompactCharacter.unpackScore(character.getPackedAbilities(), ability);
+    }
+    skills[size] = character.getSkillMask();
+    proficiencyBonuses[size] = (byte) character.getProficiencyBonus();
+    return size++;
+  }
+
+  private void grow() {
+    int capacity = Math.max(DEFAULT_CAPACITY, names.length * 2);
+    names = Arrays.copyOf(names, capacity);
+    for (Ability ability : ABILITIES) {
+      scores[ability.ordinal()] = Arrays.copyOf(scores[ability.ordinal()], capacity);
+    }
+    skills = Arrays.copyOf(skills, capacity);
+    proficiencyBonuses = Arrays.copyOf(proficiencyBonuses, capacity);
+  }
+
+  /**
+   * Retourne le nombre de personnages.
+   *
+   * @return le nombre de personnages
+   */
+  public int size() {
+    return size;
+  }
+
+  private void validateIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(MSG_INDEX_INVALID);
+    }
+  }
+
+  /**
+   * Retourne le nom d'un personnage.
+   *
+   * @param index l'indice du personnage
+   * @return le nom
+   */
+  public String getName(int index) {
+    validateIndex(index);
+    return names[index];
+  }
+
+  /**
+   * Retourne le score d'une caractéristique d'un personnage.
+   *
+   * @param index l'indice du personnage
+   * @param ability la caractéristique
+   * @return le score
+   */
+  public AbilityScore get(int index, Ability ability) {
+    validateIndex(index);
+    return AbilityScore.of(scores[ability.ordinal()][index]);
+  }
+
+  /**
+   * Retourne le bonus de maîtrise d'un personnage.
+   *
+   * @param index l'indice du personnage
+   * @return le bonus de maîtrise
+   */
+  public int getProficiencyBonus(int index) {
+    validateIndex(index);
+    return proficiencyBonuses[index];
+  }
+
+  /**
+   * Vérifie si un personnage maîtrise une compétence.
+   *
+   * @param index l'indice du personnage
+   * @param skill la compétence
+   * @return true si le personnage maîtrise la compétence, false sinon
+   */
+  public boolean isProficientIn(int index, Skill skill) {
+    validateIndex(index);
+    return (skills[index] & 1 << skill.ordinal()) != 0;
+  }
+
+  /**
+   * Retourne le bonus d'un personnage spécifique à une compétence.
+   *
+   * @param index l'indice du personnage
+   * @param skill la compétence
+   * @return le bonus
+   */
+  public int getProficiencyBonusIn(int index, Skill skill) {
+    validateIndex(index);
+    return skillModifier(index, skill.getAbility().ordinal(), skill.ordinal());
+  }
+
+  private int skillModifier(int index, int ability, int skill) {
+    int modifier = MODIFIERS[scores[ability][index]];
+    return (skills[index] >>> skill & 1) != 0 ? modifier + proficiencyBonuses[index] : modifier;
+  }
+
+  /**
+   * Retourne un personnage sous forme compacte.
+   *
+   * @param index l'indice du personnage
+   * @return le personnage
+   */
+  public CompactCharacter getCompact(int index) {
+    validateIndex(index);
+    int packed = 0;
+    for (Ability ability : ABILITIES) {
+      packed |= scores[ability.ordinal()][index] << ability.ordinal() * CompactCharacter.BITS_PER_SCORE;
+    }
+    return CompactCharacter.of(names[index], packed, skills[index], proficiencyBonuses[index]);
+  }
+
+  /**
+   * Reconstruit un personnage.
+   *
+   * @param index l'indice du personnage
+   * @return le personnage
+   */
+  public Character getCharacter(int index) {
+    return getCompact(index).toCharacter();
+  }
+
+  /**
+   * Effectue un test de caractéristique pour toute la population.
+   *
+   * @param ability la caractéristique
+   * @param difficultyClass la difficulté du test
+   * @param advantage avantage ou désavantage
+   * @return l'ensemble des indices des personnages ayant réussi
+   */
+  public BitSet checks(Ability ability, DifficultyClass difficultyClass, Character.Advantage advantage) {
+    return checks(ability, difficultyClass, advantage, Dice.getRandomSource());
+  }
+
+  /**
+   * Effectue un test de caractéristique pour toute la population avec une source aléatoire donnée.
+   *
+   * @param ability la caractéristique
+   * @param difficultyClass la difficulté du test
+   * @param advantage avantage ou désavantage
+   * @param source la source aléatoire
+   * @return l'ensemble des indices des personnages ayant réussi
+   */
+  public BitSet checks(Ability ability, DifficultyClass difficultyClass, Character.Advantage advantage,
+                       RandomSource source) {
+    return checks(ability.ordinal(), -1, difficultyClass, advantage, source);
+  }
+
+  /**
+   * Effectue un test de compétence pour toute la population.
+   *
+   * @param skill la compétence
+   * @param difficultyClass la difficulté du test
+   * @param advantage avantage ou désavantage
+   * @return l'ensemble des indices des personnages ayant réussi
+   */
+  public BitSet checks(Skill skill, DifficultyClass difficultyClass, Character.Advantage advantage) {
+    return checks(skill, difficultyClass, advantage, Dice.getRandomSource());
+  }
+
+  /**
+   * Effectue un test de compétence pour toute la population avec une source aléatoire donnée.
+   *
+   * @param skill la compétence
+   * @param difficultyClass la difficulté du test
+   * @param advantage avantage ou désavantage
+   * @param source la source aléatoire
+   * @return l'ensemble des indices des personnages ayant réussi
+   */
+  public BitSet checks(Skill skill, DifficultyClass difficultyClass, Character.Advantage advantage,
+                       RandomSource source) {
+    return checks(skill.getAbility().ordinal(), skill.ordinal(), difficultyClass, advantage, source);
+  }
+
+  private BitSet checks(int ability, int skill, DifficultyClass difficultyClass, Character.Advantage advantage,
+                        RandomSource source) {
+    Objects.requireNonNull(difficultyClass);
+    Objects.requireNonNull(source);
+    final byte[] column = scores[ability];
+    final long[] words = new long[(size + Long.SIZE - 1) / Long.SIZE];
+    final int draws = advantage == Character.Advantage.None ? 1 : 2;
+    final int[] d20s = new int[Math.min(size, CHECKS_PER_BATCH) * draws];
+    for (int from = 0; from < size; from += CHECKS_PER_BATCH) {
+      int to = Math.min(size, from + CHECKS_PER_BATCH);
+      long start = RollMetrics.start();
+      // mêmes tirages que roll20WithAdvantage : un d20, ou deux d20 successifs dont on garde max/min
+      Dice.d20.roll(d20s, 0, (to - from) * draws, source);
+      for (int i = from; i < to; i++) {
+        int modifier = skill < 0 ? MODIFIERS[column[i]] : skillModifier(i, ability, skill);
+        int j = (i - from) * draws;
+        int rolled = switch (advantage) {
+          case Advantage -> Math.max(d20s[j], d20s[j + 1]);
+          case None -> d20s[j];
+          case Disadvantage -> Math.min(d20s[j], d20s[j + 1]);
+        };
+        if (Character.check(rolled, modifier, difficultyClass, advantage)) {
+          words[i >>> 6] |= 1L << i;
+        }
+      }
+      RollMetrics.checks(start, to - from);
+    }
+    return BitSet.valueOf(words);
+  }
+}
@@ -0,0 +1,24 @@
+package fr.uvsq.hal.pglp.rpg;
+
+/**
+ * L'enregistrement <code>CheckResult</code> décrit le résultat détaillé d'un test.
+ *
+ * @param rolled la valeur retenue du d20
+ * @param modifier le modificateur ajouté au d20
+ * @param difficultyClass le degré de difficulté du test
+ * @param advantage avantage ou désavantage
+ * @param success true si le test est réussi
+ * @author hal
+ * @version 2022
+ */
+public record CheckResult(int rolled, int modifier, DifficultyClass difficultyClass,
+                          Character.Advantage advantage, boolean success) {
+  /**
+   * Retourne le total du test (d20 et modificateur).
+   *
+   * @return le total
+   */
+  public int total() {
+    return rolled + modifier;
+  }
+}
@@ -0,0 +1,213 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import java.util.Objects;
+
+/**
+ * La classe <code>CompactCharacter</code> est une représentation compacte et immuable d'un personnage,
+ * destinée aux grandes populations conservées en mémoire.
+ * Les six scores de caractéristiques sont regroupés dans un <code>int</code> (5 bits chacun),
+ * les compétences dans un masque de 18 bits et le bonus de maîtrise dans un octet.
+ *
+ * @author hal
+ * @version 2022
+ */
+public final class CompactCharacter {
+  /** Nombre de bits par score de caractéristique. */
+  public static final int BITS_PER_SCORE = 5;
+
+  /** Plus petit bonus de maîtrise représentable. */
+  public static final int MIN_PROFICIENCY_BONUS = Byte.MIN_VALUE;
+
+  /** Plus grand bonus de maîtrise représentable. */
+  public static final int MAX_PROFICIENCY_BONUS = Byte.MAX_VALUE;
+
+  private static final String MSG_PROFICIENCY_BONUS_INVALID =
+      "The proficiency bonus should be between " + MIN_PROFICIENCY_BONUS + " and " + MAX_PROFICIENCY_BONUS + ".";
+  private static final String MSG_SKILL_MASK_INVALID = "The skill mask contains unknown skills.";
+  private static final String MSG_SCORES_INVALID = "The scores should mention each ability once and only once.";
+
+  private static final int SCORE_MASK = (1 << BITS_PER_SCORE) - 1;
+  private static final int ALL_SKILLS_MASK = (1 << Skill.values().length) - 1;
+  private static final Ability[] ABILITIES = Ability.values();
+
+  private final String name;
+  private final int abilities;
+  private final int skills;
+  private final byte proficiencyBonus;
+
+  private CompactCharacter(String name, int abilities, int skills, byte proficiencyBonus) {
+    this.name = name;
+    this.abilities = abilities;
+    this.skills = skills;
+    this.proficiencyBonus = proficiencyBonus;
+  }
+
+  /**
+   * Crée la représentation compacte d'un personnage.
+   *
+   * @param character le personnage
+   * @return la représentation compacte
+   * @throws IllegalArgumentException si le bonus de maîtrise n'est pas représentable sur un octet
+   */
+  public static CompactCharacter of(Character character) {
+    return new CompactCharacter(character.getName(), packAbilities(character), Skill.toMask(character.getSkills()),
+      toProficiencyBonus(character.getProficiencyBonus()));
+  }
+
+  /**
+   * Crée une représentation compacte à partir de ses champs.
+   *
+   * @param name le nom
+   * @param packedAbilities les scores regroupés (voir <code>packAbilities</code>)
+   * @param skillMask le masque des compétences maîtrisées
+   * @param proficiencyBonus le bonus de maîtrise
+   * @return la représentation compacte
+   * @throws IllegalArgumentException si un score, le masque ou le bonus de maîtrise est invalide
+   */
+  public static CompactCharacter of(String name, int packedAbilities, int skillMask, int proficiencyBonus) {
+    for (Ability ability : ABILITIES) {
+      AbilityScore.of(unpackScore(packedAbilities, ability));
+    }
+    if ((skillMask & ~ALL_SKILLS_MASK) != 0) {
+      throw new IllegalArgumentException(MSG_SKILL_MASK_INVALID);
+    }
+    return new CompactCharacter(Objects.requireNonNull(name), packedAbilities, skillMask,
+      toProficiencyBonus(proficiencyBonus));
+  }
+
+  private static byte toProficiencyBonus(int proficiencyBonus) {
+    if (proficiencyBonus < MIN_PROFICIENCY_BONUS || proficiencyBonus > MAX_PROFICIENCY_BONUS) {
+      throw new IllegalArgumentException(MSG_PROFICIENCY_BONUS_INVALID);
+    }
+    return (byte) proficiencyBonus;
+  }
+
+  /**
+   * Regroupe les scores de caractéristiques d'un personnage dans un entier.
+   * Le score de la caractéristique d'ordinal i occupe les bits 5i à 5i+4.
+   *
+   * @param character le personnage
+   * @return les scores regroupés
+   */
+  public static int packAbilities(Character character) {
+    int packed = 0;
+    for (Ability ability : ABILITIES) {
+      packed |= character.get(ability).getScore() << ability.ordinal() * BITS_PER_SCORE;
+    }
+    return packed;
+  }
+
+  /**
+   * Regroupe des scores de caractéristiques dans un entier.
+   *
+   * @param abilityScores les scores indexés par l'ordinal des caractéristiques
+   * @return les scores regroupés
+   * @throws IllegalArgumentException si le nombre de scores ou un score est invalide
+   */
+  public static int packAbilities(int[] abilityScores) {
+    if (abilityScores.length != ABILITIES.length) {
+      throw new IllegalArgumentException(MSG_SCORES_INVALID);
+    }
+    int packed = 0;
+    for (Ability ability : ABILITIES) {
+      packed |= AbilityScore.of(abilityScores[ability.ordinal()]).getScore() << ability.ordinal() * BITS_PER_SCORE;
+    }
+    return packed;
+  }
+
+  /**
+   * Extrait un score de caractéristique d'un entier regroupant les scores.
+   *
+   * @param packedAbilities les scores regroupés
+   * @param ability la caractéristique
+   * @return le score
+   */
+  public static int unpackScore(int packedAbilities, Ability ability) {
+    return packedAbilities >>> ability.ordinal() * BITS_PER_SCORE & SCORE_MASK;
+  }
+
+  /**
+   * Retourne le nom du personnage.
+   *
+   * @return le nom
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Retourne le score d'une caractéristique.
+   *
+   * @param ability la caractéristique
+   * @return le score
+   */
+  public AbilityScore get(Ability ability) {
+    return AbilityScore.of(unpackScore(abilities, ability));
+  }
+
+  /**
+   * Retourne le bonus de maîtrise.
+   *
+   * @return le bonus de maîtrise
+   */
+  public int getProficiencyBonus() {
+    return proficiencyBonus;
+  }
+
+  /**
+   * Vérifie si le personnage maîtrise la compétence.
+   *
+   * @param skill la compétence
+   * @return true si le personnage maîtrise la compétence, false sinon
+   */
+  public boolean isProficientIn(Skill skill) {
+    return (skills & 1 << skill.ordinal()) != 0;
+  }
+
+  /**
+   * Retourne le bonus de maîtrise spécifique à une compétence.
+   *
+   * @param skill la compétence
+   * @return le bonus
+   */
+  public int getProficiencyBonusIn(Skill skill) {
+    int bonus = get(skill.getAbility()).getModifier();
+    return isProficientIn(skill) ? bonus + proficiencyBonus : bonus;
+  }
+
+  /**
+   * Retourne les scores regroupés.
+   *
+   * @return les scores regroupés
+   */
+  public int getPackedAbilities() {
+    return abilities;
+  }
+
+  /**
+   * Retourne le masque des compétences maîtrisées.
+   *
+   * @return le masque
+   */
+  public int getSkillMask() {
+    return skills;
+  }
+
+  /**
+   * Reconstruit le personnage complet.
+   *
+   * @return le personnage
+   */
+  public Character toCharacter() {
+    int[] scores = new int[ABILITIES.length];
+    for (Ability ability : ABILITIES) {
+      scores[ability.ordinal()] = unpackScore(abilities, ability);
+    }
+    return new Character(name, scores, proficiencyBonus, skills);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s (%08x, %05x, %d)", name, abilities, skills, proficiencyBonus);
+  }
+}
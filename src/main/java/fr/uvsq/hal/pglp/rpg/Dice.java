@@ -1,10 +1,6 @@
 package fr.uvsq.hal.pglp.rpg;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import java.util.random.RandomGenerator;
-import java.util.random.RandomGeneratorFactory;
+import java.util.Objects;
 
 /**
  * L'énumération' <code>Dice</code> représente un dé.
@@ -15,13 +11,11 @@ import java.util.random.RandomGeneratorFactory;
 public enum Dice {
   d4(4), d6(6), d8(8), d10(10), d12(12), d20(20);
 
-  private static RandomGenerator generator;
-  static {
-    final RandomGeneratorFactory<RandomGenerator> factory = RandomGeneratorFactory.getDefault();
-    generator = factory.create();
-  }
-
-  private final Logger logger = LoggerFactory.getLogger(Dice.class);
+  /**
+   * Source aléatoire utilisée par défaut.
+   * Elle dispose d'un générateur par thread et peut donc être utilisée par plusieurs threads.
+   */
+  private static volatile RandomSource randomSource = RandomSource.threadLocal(System.nanoTime());
 
   private final int numberOfSides;
 
@@ -29,25 +23,79 @@ public enum Dice {
     this.numberOfSides = numberOfSides;
   }
 
+  /**
+   * Retourne le nombre de faces du dé.
+   *
+   * @return le nombre de faces
+   */
+  public int getNumberOfSides() {
+    return numberOfSides;
+  }
+
   /**
    * Lance le dé.
    *
    * @return la valeur du lancé
    */
   public int roll() {
-    int value = generator.nextInt(numberOfSides) + 1;
-    logger.debug("{} rolled : {}", this, value);
+    return roll(randomSource);
+  }
+
+  /**
+   * Lance le dé avec une source aléatoire spécifique.
+   *
+   * @param randomSource la source aléatoire
+   * @return la valeur du lancé
+   */
+  public int roll(RandomSource randomSource) {
+    int value = randomSource.nextInt(numberOfSides) + 1;
+    RollEvents.roll(this, value);
+    RollMetrics.roll(this);
     return value;
   }
 
   /**
-   * Fixe la graine du générateur aléatoire.
+   * Lance plusieurs fois le dé.
+   *
+   * @param count le nombre de lancers
+   * @param values le tableau recevant les valeurs (au moins <code>count</code> éléments)
+   */
+  public void roll(int count, int[] values) {
+    roll(count, values, randomSource);
+  }
+
+  /**
+   * Lance plusieurs fois le dé avec une source aléatoire spécifique.
+   * Les valeurs sont celles qu'auraient données autant d'appels successifs à <code>roll</code>,
+   * mais les entiers sont tirés en une seule fois.
+   *
+   * @param count le nombre de lancers
+   * @param values le tableau recevant les valeurs (au moins <code>count</code> éléments)
+   * @param randomSource la source aléatoire
+   */
+  public void roll(int count, int[] values, RandomSource randomSource) {
+    Objects.checkFromIndexSize(0, count, values.length);
+    roll(values, 0, count, randomSource);
+  }
+
+  void roll(int[] values, int offset, int count, RandomSource randomSource) {
+    randomSource.nextInts(numberOfSides, values, offset, count);
+    int end = offset + count;
+    for (int i = offset; i < end; i++) {
+      values[i]++;
+    }
+    RollEvents.rolls(this, values, offset, count);
+    RollMetrics.rolls(this, count);
+  }
+
+  /**
+   * Fixe la graine du générateur aléatoire par défaut.
+   * La source obtenue dispose d'un générateur par thread (voir <code>RandomSource.threadLocal</code>).
    *
    * @param seed la graine
    */
   public static void setSeed(long seed) {
-    final RandomGeneratorFactory<RandomGenerator> factory = RandomGeneratorFactory.getDefault();
-    generator = factory.create(seed);
+    randomSource = RandomSource.threadLocal(seed);
   }
 
   /**
@@ -56,4 +104,24 @@ public enum Dice {
   public static void setSeed() {
     setSeed(System.nanoTime());
   }
+
+  /**
+   * Retourne la source aléatoire utilisée par défaut.
+   *
+   * @return la source aléatoire
+   */
+  public static RandomSource getRandomSource() {
+    return randomSource;
+  }
+
+  /**
+   * Remplace la source aléatoire utilisée par défaut.
+   * Une source créée par <code>RandomSource.of</code> n'est pas thread-safe
+   * et ne doit être installée que pour une session mono-thread.
+   *
+   * @param randomSource la source aléatoire
+   */
+  public static void setRandomSource(RandomSource randomSource) {
+    Dice.randomSource = Objects.requireNonNull(randomSource);
+  }
 }
@@ -0,0 +1,302 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * La classe <code>DiceExpression</code> représente une expression de dés en notation standard,
+ * par exemple <code>4d6kh3+2</code>, <code>2d20kl1</code>, <code>1d8+1d6-1</code> ou <code>3d6!</code>.
+ * Une expression est une somme de termes signés ; chaque terme est un entier ou un lancer de la forme
+ * <code>[n]dX</code> suivi au choix de <code>khN</code>/<code>klN</code> (conserver les N meilleurs/plus petits dés)
+ * ou de <code>!</code> (dés explosifs : un dé au maximum est relancé et ajouté).
+ * L'analyse produit un arbre d'évaluation immuable : les constantes sont regroupées et les sommes simples
+ * fusionnées en un seul {@link DiceGroup}. Les expressions analysées sont mises en cache par leur texte ;
+ * le cache est vidé lorsqu'il atteint <code>MAX_CACHED_EXPRESSIONS</code> expressions.
+ *
+ * @author hal
+ * @version 2022
+ */
+public final class DiceExpression {
+  /** Nombre maximum de dés d'un terme. */
+  public static final int MAX_DICES = 1000;
+
+  /** Nombre maximum de relances d'un dé explosif. */
+  public static final int MAX_EXPLOSIONS = 100;
+
+  /** Nombre maximum d'expressions mises en cache. */
+  public static final int MAX_CACHED_EXPRESSIONS = 1024;
+
+  private static final String MSG_NOTATION_MANDATORY = "A dice expression is mandatory.";
+  private static final String MSG_INVALID_EXPRESSION = "Invalid dice expression '%s' at position %d: %s.";
+
+  private static final Dice[] DICES = Dice.values();
+
+  private static final ConcurrentMap<String, DiceExpression> CACHE = new ConcurrentHashMap<>();
+
+  /** Nœud de l'arbre d'évaluation. */
+  private interface Node {
+    int roll(RandomSource randomSource);
+  }
+
+  private record Sum(DiceGroup group) implements Node {
+    @Override
+    public int roll(RandomSource randomSource) {
+      return group.sum(randomSource);
+    }
+  }
+
+  private record KeepHighest(DiceGroup group, int kept) implements Node {
+    @Override
+    public int roll(RandomSource randomSource) {
+      return group.keepHighest(kept, randomSource);
+    }
+  }
+
+  private record KeepLowest(DiceGroup group, int kept) implements Node {
+    @Override
+    public int roll(RandomSource randomSource) {
+      return group.keepLowest(kept, randomSource);
+    }
+  }
+
+  private record Exploding(int numberOfDices, Dice dice) implements Node {
+    @Override
+    public int roll(RandomSource randomSource) {
+      int sides = dice.getNumberOfSides();
+      int total = 0;
+      for (int i = 0; i < numberOfDices; i++) {
+        int value = dice.roll(randomSource);
+        total += value;
+        for (int explosions = 0; value == sides && explosions < MAX_EXPLOSIONS; explosions++) {
+          value = dice.roll(randomSource);
+          total += value;
+        }
+      }
+      return total;
+    }
+  }
+
+  private record Negate(Node node) implements Node {
+    @Override
+    public int roll(RandomSource randomSource) {
+      return -node.roll(randomSource);
+    }
+  }
+
+  private final String notation;
+  private final Node[] nodes;
+  private final int constant;
+
+  private DiceExpression(String notation, Node[] nodes, int constant) {
+    this.notation = notation;
+    this.nodes = nodes;
+    this.constant = constant;
+  }
+
+  /**
+   * Retourne l'expression correspondant à une notation.
+   * Le résultat est mis en cache : analyser deux fois le même texte retourne le même objet, sauf si le cache
+   * a été vidé entre-temps.
+   *
+   * @param notation la notation
+   * @return l'expression
+   * @throws IllegalArgumentException si la notation n'est pas valide
+   */
+  public static DiceExpression parse(String notation) {
+    if (notation == null) {
+      throw new IllegalArgumentException(MSG_NOTATION_MANDATORY);
+    }
+    DiceExpression expression = CACHE.get(notation);
+    if (expression != null) {
+      return expression;
+    }
+    expression = new Parser(notation).parse();
+    if (CACHE.size() >= MAX_CACHED_EXPRESSIONS) {
+      // vider le cache plein laisse la place aux expressions utilisées actuellement
+      CACHE.clear();
+    }
+    DiceExpression previous = CACHE.putIfAbsent(notation, expression);
+    return previous != null ? previous : expression;
+  }
+
+  /**
+   * Évalue l'expression avec la source aléatoire par défaut des dés.
+   *
+   * @return le résultat
+   */
+  public int roll() {
+    return roll(Dice.getRandomSource());
+  }
+
+  /**
+   * Évalue l'expression avec une source aléatoire spécifique.
+   * Les termes sont lancés dans l'ordre de la notation, les sommes simples fusionnées en premier.
+   *
+   * @param randomSource la source aléatoire
+   * @return le résultat
+   */
+  public int roll(RandomSource randomSource) {
+    int result = constant;
+    for (Node node : nodes) {
+      result += node.roll(randomSource);
+    }
+    return result;
+  }
+
+  /**
+   * Retourne la notation de l'expression.
+   *
+   * @return la notation
+   */
+  public String getNotation() {
+    return notation;
+  }
+
+  @Override
+  public String toString() {
+    return notation;
+  }
+
+  /** Analyseur descendant de la notation. */
+  private static final class Parser {
+    private final String notation;
+    private int position;
+
+    private final int[] summedDices = new int[DICES.length];
+    private final List<Node> nodes = new ArrayList<>();
+    private int constant;
+
+    Parser(String notation) {
+      this.notation = notation;
+    }
+
+    DiceExpression parse() {
+      skipSpaces();
+      int sign = 1;
+      if (peek() == '-' || peek() == '+') {
+        sign = next() == '-' ? -1 : 1;
+      }
+      term(sign);
+      while (peek() != 0) {
+        char operator = next();
+        if (operator != '+' && operator != '-') {
+          throw error("'+' or '-' expected");
+        }
+        term(operator == '-' ? -1 : 1);
+      }
+      List<Node> compiled = new ArrayList<>();
+      DiceGroup.Builder builder = null;
+      for (int type = 0; type < DICES.length; type++) {
+        if (summedDices[type] > 0) {
+          builder = builder == null
+              ? new DiceGroup.Builder(summedDices[type], DICES[type])
+              : builder.add(summedDices[type], DICES[type]);
+        }
+      }
+      if (builder != null) {
+        compiled.add(new Sum(builder.build()));
+      }
+      compiled.addAll(nodes);
+      return new DiceExpression(notation, compiled.toArray(new Node[0]), constant);
+    }
+
+    private void term(int sign) {
+      skipSpaces();
+      int start = position;
+      int number = peek() == 'd' || peek() == 'D' ? 1 : number();
+      if (peek() != 'd' && peek() != 'D') {
+        try {
+          constant = Math.addExact(constant, sign * number);
+        } catch (ArithmeticException e) {
+          position = start;
+          throw error("constant too large");
+        }
+        skipSpaces();
+        return;
+      }
+      next();
+      if (number <= 0 || number > MAX_DICES) {
+        position = start;
+        throw error("the number of dices should be between 1 and " + MAX_DICES);
+      }
+      Dice dice = dice(number());
+      Node node;
+      if (peek() == '!') {
+        next();
+        node = new Exploding(number, dice);
+      } else if (peek() == 'k' || peek() == 'K') {
+        next();
+        char selection = next();
+        if (selection != 'h' && selection != 'H' && selection != 'l' && selection != 'L') {
+          throw error("'kh' or 'kl' expected");
+        }
+        int kept = number();
+        if (kept <= 0 || kept > number) {
+          throw error("the number of kept dices should be between 1 and " + number);
+        }
+        DiceGroup group = DiceGroup.of(number, dice);
+        if (kept == number) {
+          node = new Sum(group);
+        } else {
+          node = selection == 'h' || selection == 'H' ? new KeepHighest(group, kept) : new KeepLowest(group, kept);
+        }
+      } else if (sign > 0 && summedDices[dice.ordinal()] + number <= MAX_DICES) {
+        summedDices[dice.ordinal()] += number;
+        skipSpaces();
+        return;
+      } else {
+        node = new Sum(DiceGroup.of(number, dice));
+      }
+      nodes.add(sign < 0 ? new Negate(node) : node);
+      skipSpaces();
+    }
+
+    private Dice dice(int sides) {
+      for (Dice dice : DICES) {
+        if (dice.getNumberOfSides() == sides) {
+          return dice;
+        }
+      }
+      throw error("unsupported dice d" + sides);
+    }
+
+    private int number() {
+      int start = position;
+      int value = 0;
+      while (position < notation.length() && '0' <= notation.charAt(position) && notation.charAt(position) <= '9') {
+        value = value * 10 + (notation.charAt(position++) - '0');
+        if (value > MAX_DICES * 1000) {
+          position = start;
+          throw error("number too large");
+        }
+      }
+      if (position == start) {
+        throw error("number expected");
+      }
+      return value;
+    }
+
+    private char peek() {
+      return position < notation.length() ? notation.charAt(position) : 0;
+    }
+
+    private char next() {
+      if (position >= notation.length()) {
+        throw error("unexpected end of expression");
+      }
+      return notation.charAt(position++);
+    }
+
+    private void skipSpaces() {
+      while (position < notation.length() && java.lang.Character.isWhitespace(notation.charAt(position))) {
+        position++;
+      }
+    }
+
+    private IllegalArgumentException error(String reason) {
+      return new IllegalArgumentException(String.format(MSG_INVALID_EXPRESSION, notation, position, reason));
+    }
+  }
+}
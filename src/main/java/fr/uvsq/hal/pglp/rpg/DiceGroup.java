@@ -1,21 +1,117 @@
 package fr.uvsq.hal.pglp.rpg;
 
+import java.nio.BufferOverflowException;
+import java.nio.IntBuffer;
 import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.IntBinaryOperator;
 
 /**
  * La classe <code>DiceGroup</code> représente un groupe de dé.
+ * Un groupe est immuable : le nombre de dés de chaque type est calculé une fois
+ * pour toutes lors de sa construction.
+ * Les opérations <code>sum</code>, <code>min</code>, <code>max</code>,
+ * <code>keepHighest</code> et <code>keepLowest</code> n'allouent aucun objet.
+ * Les méthodes <code>...Distribution</code> calculent la loi exacte de ces opérations ;
+ * les résultats sont mémorisés pour les groupes partagés (un seul type, au plus <code>MAX_SHARED_DICES</code> dés).
  *
  * @author hal
  * @version 2022
  */
 public class DiceGroup {
-  private final Map<Dice, Integer> diceGroup;
+  /** Nombre maximum de dés d'un même type pour les groupes partagés. */
+  public static final int MAX_SHARED_DICES = 10;
+
+  private static final String MSG_KEPT_DICES_INVALID = "The number of kept dices is invalid.";
+  private static final String MSG_GROUP_TOO_LARGE = "The group is too large for an exact distribution.";
+  private static final String MSG_BATCH_SIZE_INVALID = "The number of rolls should not be negative.";
+
+  /** Taille maximale de la table de calcul des lois keepHighest/keepLowest. */
+  private static final int MAX_TABLE_SIZE = 1 << 24;
+
+  /** Nombre de valeurs tirées en une fois par <code>rollBatch</code>. */
+  private static final int BATCH_VALUES = 1024;
+
+  private static final Dice[] DICES = Dice.values();
+
+  /** Groupes partagés d'un seul type de dé (1d4, ..., 2d20, ..., 4d6, ...). */
+  private static final DiceGroup[][] SHARED_GROUPS = new DiceGroup[DICES.length][MAX_SHARED_DICES];
+
+  static {
+    for (Dice dice : DICES) {
+      for (int i = 0; i < MAX_SHARED_DICES; i++) {
+        SHARED_GROUPS[dice.ordinal()][i] = new Builder(i + 1, dice).build();
+      }
+    }
+  }
+
+  /** Tampon de travail pour les sélections générales (keepHighest/keepLowest). */
+  private static final ThreadLocal<int[]> SCRATCH = ThreadLocal.withInitial(() -> new int[MAX_SHARED_DICES]);
+
+  /** Tampon de travail pour les lancers par lots. */
+  private static final ThreadLocal<int[]> BATCH_SCRATCH = ThreadLocal.withInitial(() -> new int[BATCH_VALUES]);
+
+  /** Lois déjà calculées pour les groupes partagés, indexées par forme de groupe et opération. */
+  private static final ConcurrentMap<DistributionKey, Distribution> DISTRIBUTIONS = new ConcurrentHashMap<>();
+
+  /** Clé des lois mémorisées : la somme correspond à la conservation de tous les dés. */
+  private record DistributionKey(DiceGroup group, boolean highest, int kept) { }
+
+  /** Nombre de dés de chaque type indexé par l'ordinal du dé. */
+  private final int[] numberOfDicesByType;
+
+  /** Nombre total de dés du groupe. */
+  private final int numberOfDices;
+
+  /** Type de dé du groupe s'il n'en contient qu'un seul, null sinon. */
+  private final Dice singleType;
 
   private DiceGroup(Builder builder) {
-    diceGroup = builder.diceGroup;
+    numberOfDicesByType = new int[DICES.length];
+    int total = 0;
+    for (Map.Entry<Dice, Integer> entry : builder.diceGroup.entrySet()) {
+      numberOfDicesByType[entry.getKey().ordinal()] = entry.getValue();
+      total += entry.getValue();
+    }
+    numberOfDices = total;
+    singleType = builder.diceGroup.size() == 1 ? builder.diceGroup.keySet().iterator().next() : null;
+  }
+
+  /**
+   * Retourne un groupe partagé composé d'un seul type de dé.
+   * Les groupes d'au plus <code>MAX_SHARED_DICES</code> dés sont mis en cache.
+   *
+   * @param numberOfDices le nombre de dés
+   * @param dice le type de dé
+   * @return le groupe
+   */
+  public static DiceGroup of(int numberOfDices, Dice dice) {
+    if (numberOfDices > 0 && numberOfDices <= MAX_SHARED_DICES) {
+      return SHARED_GROUPS[dice.ordinal()][numberOfDices - 1];
+    }
+    return new Builder(numberOfDices, dice).build();
+  }
+
+  /**
+   * Retourne le nombre total de dés du groupe.
+   *
+   * @return le nombre de dés
+   */
+  public int getNumberOfDices() {
+    return numberOfDices;
+  }
+
+  /**
+   * Retourne le nombre de dés d'un type donné.
+   *
+   * @param dice le type de dé
+   * @return le nombre de dés de ce type
+   */
+  public int getNumberOfDices(Dice dice) {
+    return numberOfDicesByType[dice.ordinal()];
   }
 
   /**
@@ -24,17 +120,497 @@ public class DiceGroup {
    * @return les valeurs obtenues dans l'ordre croissant du nombre de faces (d4, d6, ...)
    */
   public int[] roll() {
-    int totalNumberOfDices = diceGroup.values().stream().mapToInt(Integer::intValue).sum();
-    int[] diceValues = new int[totalNumberOfDices];
+    return roll(Dice.getRandomSource());
+  }
+
+  /**
+   * Lance les dés avec une source aléatoire spécifique.
+   *
+   * @param randomSource la source aléatoire
+   * @return les valeurs obtenues dans l'ordre croissant du nombre de faces (d4, d6, ...)
+   */
+  public int[] roll(RandomSource randomSource) {
+    long start = RollMetrics.start();
+    int[] result = rollValues(randomSource);
+    RollMetrics.groupRoll(start);
+    return result;
+  }
+
+  private int[] rollValues(RandomSource randomSource) {
+    int[] diceValues = new int[numberOfDices];
+    rollInto(diceValues, randomSource);
+    return diceValues;
+  }
+
+  private void rollInto(int[] diceValues, RandomSource randomSource) {
     int index = 0;
-    for (Map.Entry<Dice, Integer> entry : diceGroup.entrySet()) {
-      int numberOfDices = entry.getValue();
-      for (int i = 0; i < numberOfDices; i++) {
-        diceValues[index + i] = entry.getKey().roll();
+    for (int type = 0; type < DICES.length; type++) {
+      Dice dice = DICES[type];
+      for (int i = numberOfDicesByType[type]; i > 0; i--) {
+        diceValues[index++] = dice.roll(randomSource);
       }
-      index += numberOfDices;
     }
-    return diceValues;
+  }
+
+  /**
+   * Lance les dés et fait la somme des résultats.
+   *
+   * @return la somme des dés
+   */
+  public int sum() {
+    return sum(Dice.getRandomSource());
+  }
+
+  /**
+   * Lance les dés avec une source aléatoire spécifique et fait la somme des résultats.
+   *
+   * @param randomSource la source aléatoire
+   * @return la somme des dés
+   */
+  public int sum(RandomSource randomSource) {
+    long start = RollMetrics.start();
+    int result = rollSum(randomSource);
+    RollMetrics.groupRoll(start);
+    return result;
+  }
+
+  private int rollSum(RandomSource randomSource) {
+    int sum = 0;
+    for (int type = 0; type < DICES.length; type++) {
+      Dice dice = DICES[type];
+      for (int i = numberOfDicesByType[type]; i > 0; i--) {
+        sum += dice.roll(randomSource);
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * Lance plusieurs fois les dés et écrit la somme de chaque lancer dans un tampon.
+   *
+   * @param n le nombre de lancers
+   * @param sums le tampon recevant les sommes à partir de sa position courante
+   */
+  public void rollBatch(int n, IntBuffer sums) {
+    rollBatch(n, sums, Dice.getRandomSource());
+  }
+
+  /**
+   * Lance plusieurs fois les dés avec une source aléatoire spécifique
+   * et écrit la somme de chaque lancer dans un tampon.
+   * Les sommes sont celles qu'auraient données autant d'appels successifs à <code>sum</code>,
+   * mais les valeurs des dés sont tirées par lots.
+   *
+   * @param n le nombre de lancers
+   * @param sums le tampon recevant les sommes à partir de sa position courante
+   * @param randomSource la source aléatoire
+   * @throws BufferOverflowException si le tampon ne peut recevoir n sommes
+   */
+  public void rollBatch(int n, IntBuffer sums, RandomSource randomSource) {
+    if (n < 0) {
+      throw new IllegalArgumentException(MSG_BATCH_SIZE_INVALID);
+    }
+    if (sums.remaining() < n) {
+      throw new BufferOverflowException();
+    }
+    long start = RollMetrics.start();
+    int rollsPerChunk = Math.max(1, BATCH_VALUES / numberOfDices);
+    int[] values = BATCH_SCRATCH.get();
+    if (values.length < rollsPerChunk * numberOfDices) {
+      values = new int[rollsPerChunk * numberOfDices];
+      BATCH_SCRATCH.set(values);
+    }
+    for (int done = 0; done < n; done += rollsPerChunk) {
+      int rolls = Math.min(rollsPerChunk, n - done);
+      if (singleType != null) {
+        singleType.roll(values, 0, rolls * numberOfDices, randomSource);
+      } else {
+        int offset = 0;
+        for (int r = 0; r < rolls; r++) {
+          for (int type = 0; type < DICES.length; type++) {
+            int count = numberOfDicesByType[type];
+            if (count > 0) {
+              DICES[type].roll(values, offset, count, randomSource);
+              offset += count;
+            }
+          }
+        }
+      }
+      // la somme du lancer r est écrite en r, qui précède ses valeurs
+      for (int r = 0; r < rolls; r++) {
+        values[r] = sumRange(values, r * numberOfDices, (r + 1) * numberOfDices);
+      }
+      sums.put(values, 0, rolls);
+    }
+    RollMetrics.groupRolls(start, n);
+  }
+
+  /**
+   * Lance les dés et prend le minimum des résultats.
+   *
+   * @return le minimum des dés
+   */
+  public int min() {
+    return min(Dice.getRandomSource());
+  }
+
+  /**
+   * Lance les dés avec une source aléatoire spécifique et prend le minimum des résultats.
+   *
+   * @param randomSource la source aléatoire
+   * @return le minimum des dés
+   */
+  public int min(RandomSource randomSource) {
+    long start = RollMetrics.start();
+    int result = rollMin(randomSource);
+    RollMetrics.groupRoll(start);
+    return result;
+  }
+
+  private int rollMin(RandomSource randomSource) {
+    int min = Integer.MAX_VALUE;
+    for (int type = 0; type < DICES.length; type++) {
+      Dice dice = DICES[type];
+      for (int i = numberOfDicesByType[type]; i > 0; i--) {
+        min = Math.min(min, dice.roll(randomSource));
+      }
+    }
+    return min;
+  }
+
+  /**
+   * Lance les dés et prend le maximum des résultats.
+   *
+   * @return le maximum des dés
+   */
+  public int max() {
+    return max(Dice.getRandomSource());
+  }
+
+  /**
+   * Lance les dés avec une source aléatoire spécifique et prend le maximum des résultats.
+   *
+   * @param randomSource la source aléatoire
+   * @return le maximum des dés
+   */
+  public int max(RandomSource randomSource) {
+    long start = RollMetrics.start();
+    int result = rollMax(randomSource);
+    RollMetrics.groupRoll(start);
+    return result;
+  }
+
+  private int rollMax(RandomSource randomSource) {
+    int max = Integer.MIN_VALUE;
+    for (int type = 0; type < DICES.length; type++) {
+      Dice dice = DICES[type];
+      for (int i = numberOfDicesByType[type]; i > 0; i--) {
+        max = Math.max(max, dice.roll(randomSource));
+      }
+    }
+    return max;
+  }
+
+  /**
+   * Lance les dés et fait la somme des <code>n</code> meilleurs résultats.
+   * Par exemple, <code>DiceGroup.of(4, d6).keepHighest(3)</code> correspond à 4d6kh3.
+   *
+   * @param n le nombre de dés conservés
+   * @return la somme des n meilleurs dés
+   */
+  public int keepHighest(int n) {
+    return keepHighest(n, Dice.getRandomSource());
+  }
+
+  /**
+   * Lance les dés avec une source aléatoire spécifique et fait la somme des <code>n</code> meilleurs résultats.
+   *
+   * @param n le nombre de dés conservés
+   * @param randomSource la source aléatoire
+   * @return la somme des n meilleurs dés
+   */
+  public int keepHighest(int n, RandomSource randomSource) {
+    long start = RollMetrics.start();
+    int result = rollKeepHighest(n, randomSource);
+    RollMetrics.groupRoll(start);
+    return result;
+  }
+
+  private int rollKeepHighest(int n, RandomSource randomSource) {
+    validateKeptDices(n);
+    if (n == numberOfDices) {
+      return rollSum(randomSource);
+    }
+    if (n == 1) {
+      return rollMax(randomSource);
+    }
+    if (n == numberOfDices - 1) {
+      int sum = 0;
+      int min = Integer.MAX_VALUE;
+      for (int type = 0; type < DICES.length; type++) {
+        Dice dice = DICES[type];
+        for (int i = numberOfDicesByType[type]; i > 0; i--) {
+          int value = dice.roll(randomSource);
+          sum += value;
+          min = Math.min(min, value);
+        }
+      }
+      return sum - min;
+    }
+    int[] values = rollSorted(randomSource);
+    return sumRange(values, numberOfDices - n, numberOfDices);
+  }
+
+  /**
+   * Lance les dés et fait la somme des <code>n</code> plus petits résultats.
+   *
+   * @param n le nombre de dés conservés
+   * @return la somme des n plus petits dés
+   */
+  public int keepLowest(int n) {
+    return keepLowest(n, Dice.getRandomSource());
+  }
+
+  /**
+   * Lance les dés avec une source aléatoire spécifique et fait la somme des <code>n</code> plus petits résultats.
+   *
+   * @param n le nombre de dés conservés
+   * @param randomSource la source aléatoire
+   * @return la somme des n plus petits dés
+   */
+  public int keepLowest(int n, RandomSource randomSource) {
+    long start = RollMetrics.start();
+    int result = rollKeepLowest(n, randomSource);
+    RollMetrics.groupRoll(start);
+    return result;
+  }
+
+  private int rollKeepLowest(int n, RandomSource randomSource) {
+    validateKeptDices(n);
+    if (n == numberOfDices) {
+      return rollSum(randomSource);
+    }
+    if (n == 1) {
+      return rollMin(randomSource);
+    }
+    if (n == numberOfDices - 1) {
+      int sum = 0;
+      int max = Integer.MIN_VALUE;
+      for (int type = 0; type < DICES.length; type++) {
+        Dice dice = DICES[type];
+        for (int i = numberOfDicesByType[type]; i > 0; i--) {
+          int value = dice.roll(randomSource);
+          sum += value;
+          max = Math.max(max, value);
+        }
+      }
+      return sum - max;
+    }
+    int[] values = rollSorted(randomSource);
+    return sumRange(values, 0, n);
+  }
+
+  private void validateKeptDices(int n) {
+    if (n <= 0 || n > numberOfDices) {
+      throw new IllegalArgumentException(MSG_KEPT_DICES_INVALID);
+    }
+  }
+
+  private int[] rollSorted(RandomSource randomSource) {
+    int[] values = SCRATCH.get();
+    if (values.length < numberOfDices) {
+      values = new int[numberOfDices];
+      SCRATCH.set(values);
+    }
+    rollInto(values, randomSource);
+    Arrays.sort(values, 0, numberOfDices);
+    return values;
+  }
+
+  private static int sumRange(int[] values, int from, int to) {
+    int sum = 0;
+    for (int i = from; i < to; i++) {
+      sum += values[i];
+    }
+    return sum;
+  }
+
+  /**
+   * Retourne la loi exacte de la somme des dés.
+   *
+   * @return la loi de la somme
+   */
+  public Distribution sumDistribution() {
+    return distribution(new DistributionKey(this, true, numberOfDices));
+  }
+
+  /**
+   * Retourne la loi exacte du plus petit dé.
+   *
+   * @return la loi du minimum
+   */
+  public Distribution minDistribution() {
+    return keepLowestDistribution(1);
+  }
+
+  /**
+   * Retourne la loi exacte du plus grand dé.
+   *
+   * @return la loi du maximum
+   */
+  public Distribution maxDistribution() {
+    return keepHighestDistribution(1);
+  }
+
+  /**
+   * Retourne la loi exacte de la somme des <code>n</code> meilleurs dés.
+   * Par exemple, <code>DiceGroup.of(4, d6).keepHighestDistribution(3).atLeast(15)</code>
+   * est la probabilité d'obtenir au moins 15 en 4d6kh3.
+   *
+   * @param n le nombre de dés conservés
+   * @return la loi de la somme des n meilleurs dés
+   * @throws IllegalArgumentException si n est invalide ou si le groupe est trop grand pour un calcul exact
+   */
+  public Distribution keepHighestDistribution(int n) {
+    validateKeptDices(n);
+    if (n == numberOfDices) {
+      return sumDistribution();
+    }
+    return distribution(new DistributionKey(this, true, n));
+  }
+
+  /**
+   * Retourne la loi exacte de la somme des <code>n</code> plus petits dés.
+   *
+   * @param n le nombre de dés conservés
+   * @return la loi de la somme des n plus petits dés
+   * @throws IllegalArgumentException si n est invalide ou si le groupe est trop grand pour un calcul exact
+   */
+  public Distribution keepLowestDistribution(int n) {
+    validateKeptDices(n);
+    if (n == numberOfDices) {
+      return sumDistribution();
+    }
+    return distribution(new DistributionKey(this, false, n));
+  }
+
+  /**
+   * Calcule une loi, en la mémorisant si le groupe est partagé :
+   * le nombre de lois mémorisées est ainsi borné.
+   */
+  private Distribution distribution(DistributionKey key) {
+    if (isShared()) {
+      return DISTRIBUTIONS.computeIfAbsent(key, DiceGroup::computeDistribution);
+    }
+    return computeDistribution(key);
+  }
+
+  private static Distribution computeDistribution(DistributionKey key) {
+    DiceGroup group = key.group();
+    return key.kept() == group.numberOfDices
+        ? group.computeSumDistribution()
+        : group.computeKeepDistribution(key.kept(), key.highest());
+  }
+
+  private boolean isShared() {
+    return singleType != null && numberOfDices <= MAX_SHARED_DICES;
+  }
+
+  /** Convolue successivement les lois uniformes de chaque dé. */
+  private Distribution computeSumDistribution() {
+    double[] probabilities = { 1.0 };
+    for (int type = 0; type < DICES.length; type++) {
+      int sides = DICES[type].getNumberOfSides();
+      for (int i = numberOfDicesByType[type]; i > 0; i--) {
+        double[] next = new double[probabilities.length + sides];
+        for (int s = 0; s < probabilities.length; s++) {
+          double p = probabilities[s] / sides;
+          for (int face = 1; face <= sides; face++) {
+            next[s + face] += p;
+          }
+        }
+        probabilities = next;
+      }
+    }
+    return Distribution.of(probabilities);
+  }
+
+  /**
+   * Parcourt les faces dans l'ordre décroissant (ou croissant) en choisissant
+   * combien de dés de chaque type affichent la face courante.
+   * L'état est le nombre de dés restants par type, le nombre de dés conservés et leur somme.
+   */
+  private Distribution computeKeepDistribution(int n, boolean highest) {
+    int maxSides = 0;
+    int states = 1;
+    int[] strides = new int[DICES.length];
+    int sums;
+    int stateStride;
+    int tableSize;
+    try {
+      for (int type = 0; type < DICES.length; type++) {
+        strides[type] = states;
+        states = Math.multiplyExact(states, numberOfDicesByType[type] + 1);
+        if (numberOfDicesByType[type] > 0) {
+          maxSides = Math.max(maxSides, DICES[type].getNumberOfSides());
+        }
+      }
+      sums = Math.addExact(Math.multiplyExact(n, maxSides), 1);
+      stateStride = Math.multiplyExact(n + 1, sums);
+      tableSize = Math.multiplyExact(states, stateStride);
+    } catch (ArithmeticException e) {
+      throw new IllegalArgumentException(MSG_GROUP_TOO_LARGE, e);
+    }
+    if (tableSize > MAX_TABLE_SIZE) {
+      throw new IllegalArgumentException(MSG_GROUP_TOO_LARGE);
+    }
+    int keptStride = sums;
+    double[][] binomials = binomials(numberOfDices);
+
+    double[] current = new double[tableSize];
+    current[(states - 1) * stateStride] = 1.0;
+    for (int step = 0; step < maxSides; step++) {
+      int face = highest ? maxSides - step : step + 1;
+      for (int type = 0; type < DICES.length; type++) {
+        int sides = DICES[type].getNumberOfSides();
+        if (numberOfDicesByType[type] == 0 || sides < face) {
+          continue;
+        }
+        double[] next = new double[current.length];
+        for (int state = 0; state < states; state++) {
+          int remaining = state / strides[type] % (numberOfDicesByType[type] + 1);
+          for (int j = 0; j <= remaining; j++) {
+            double weight = binomials[remaining][j] * Math.pow(1.0 / sides, j);
+            int target = (state - j * strides[type]) * stateStride;
+            int source = state * stateStride;
+            for (int kept = 0; kept <= n; kept++) {
+              int taken = Math.min(j, n - kept);
+              for (int sum = 0; sum + taken * face < sums; sum++) {
+                double p = current[source + kept * keptStride + sum];
+                if (p != 0.0) {
+                  next[target + (kept + taken) * keptStride + sum + taken * face] += p * weight;
+                }
+              }
+            }
+          }
+        }
+        current = next;
+      }
+    }
+    return Distribution.of(Arrays.copyOfRange(current, n * keptStride, n * keptStride + sums));
+  }
+
+  private static double[][] binomials(int n) {
+    double[][] binomials = new double[n + 1][];
+    for (int i = 0; i <= n; i++) {
+      binomials[i] = new double[i + 1];
+      binomials[i][0] = 1.0;
+      binomials[i][i] = 1.0;
+      for (int j = 1; j < i; j++) {
+        binomials[i][j] = binomials[i - 1][j - 1] + binomials[i - 1][j];
+      }
+    }
+    return binomials;
   }
 
   /**
@@ -43,7 +619,7 @@ public class DiceGroup {
    * @return la somme des dés
    */
   public int rollnSun() {
-    return rollnApply(Integer::sum);
+    return sum();
   }
 
   /**
@@ -52,7 +628,7 @@ public class DiceGroup {
    * @return le minimum des dés
    */
   public int rollnMin() {
-    return rollnApply(Integer::min);
+    return min();
   }
 
   /**
@@ -61,7 +637,7 @@ public class DiceGroup {
    * @return le maximum des dés
    */
   public int rollnMax() {
-    return rollnApply(Integer::max);
+    return max();
   }
 
   /**
@@ -71,8 +647,68 @@ public class DiceGroup {
    * @return la fonction appliquée aux résultats
    */
   public int rollnApply(IntBinaryOperator op) {
-    int[] rolledValues = roll();
-    return Arrays.stream(rolledValues).reduce(op).getAsInt();
+    return rollnApply(op, Dice.getRandomSource());
+  }
+
+  /**
+   * Lance les dés avec une source aléatoire spécifique et applique une fonction aux résultats.
+   *
+   * @param op l'opération à appliquer
+   * @param randomSource la source aléatoire
+   * @return la fonction appliquée aux résultats
+   */
+  public int rollnApply(IntBinaryOperator op, RandomSource randomSource) {
+    long start = RollMetrics.start();
+    int result = rollApply(op, randomSource);
+    RollMetrics.groupRoll(start);
+    return result;
+  }
+
+  private int rollApply(IntBinaryOperator op, RandomSource randomSource) {
+    boolean first = true;
+    int result = 0;
+    for (int type = 0; type < DICES.length; type++) {
+      Dice dice = DICES[type];
+      for (int i = numberOfDicesByType[type]; i > 0; i--) {
+        int value = dice.roll(randomSource);
+        result = first ? value : op.applyAsInt(result, value);
+        first = false;
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+
+    DiceGroup that = (DiceGroup) o;
+
+    return Arrays.equals(numberOfDicesByType, that.numberOfDicesByType);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(numberOfDicesByType);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (int type = 0; type < DICES.length; type++) {
+      if (numberOfDicesByType[type] > 0) {
+        if (sb.length() > 0) {
+          sb.append('+');
+        }
+        sb.append(numberOfDicesByType[type]).append(DICES[type]);
+      }
+    }
+    return sb.toString();
   }
 
   /**
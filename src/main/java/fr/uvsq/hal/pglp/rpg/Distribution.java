@@ -0,0 +1,138 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import java.util.Arrays;
+
+/**
+ * La classe <code>Distribution</code> représente la loi de probabilité exacte
+ * d'un résultat entier (somme de dés, meilleur dé, ...).
+ * Les probabilités sont stockées de la plus petite à la plus grande valeur possible.
+ *
+ * @author hal
+ * @version 2022
+ */
+public final class Distribution {
+  /** Plus petite valeur possible. */
+  private final int min;
+
+  /** Probabilité de chaque valeur à partir de <code>min</code>. */
+  private final double[] probabilities;
+
+  private final double mean;
+  private final double variance;
+
+  private Distribution(int min, double[] probabilities) {
+    this.min = min;
+    this.probabilities = probabilities;
+    double m = 0.0;
+    for (int i = 0; i < probabilities.length; i++) {
+      m += (min + i) * probabilities[i];
+    }
+    double v = 0.0;
+    for (int i = 0; i < probabilities.length; i++) {
+      double delta = min + i - m;
+      v += delta * delta * probabilities[i];
+    }
+    mean = m;
+    variance = v;
+  }
+
+  /**
+   * Crée une distribution à partir des probabilités des valeurs 0, 1, 2, ...
+   * Les valeurs de probabilité nulle aux extrémités sont ignorées.
+   *
+   * @param probabilities les probabilités indexées par la valeur
+   * @return la distribution
+   */
+  static Distribution of(double[] probabilities) {
+    int first = 0;
+    while (first < probabilities.length - 1 && probabilities[first] == 0.0) {
+      first++;
+    }
+    int last = probabilities.length - 1;
+    while (last > first && probabilities[last] == 0.0) {
+      last--;
+    }
+    return new Distribution(first, Arrays.copyOfRange(probabilities, first, last + 1));
+  }
+
+  /**
+   * Retourne la plus petite valeur possible.
+   *
+   * @return la valeur minimale
+   */
+  public int getMin() {
+    return min;
+  }
+
+  /**
+   * Retourne la plus grande valeur possible.
+   *
+   * @return la valeur maximale
+   */
+  public int getMax() {
+    return min + probabilities.length - 1;
+  }
+
+  /**
+   * Retourne la probabilité d'obtenir exactement une valeur.
+   *
+   * @param value la valeur
+   * @return la probabilité
+   */
+  public double probability(int value) {
+    return value < min || value > getMax() ? 0.0 : probabilities[value - min];
+  }
+
+  /**
+   * Retourne la probabilité d'obtenir au plus une valeur (fonction de répartition).
+   *
+   * @param value la valeur
+   * @return la probabilité
+   */
+  public double cumulative(int value) {
+    if (value < min) {
+      return 0.0;
+    }
+    if (value >= getMax()) {
+      return 1.0;
+    }
+    double p = 0.0;
+    for (int i = 0; i <= value - min; i++) {
+      p += probabilities[i];
+    }
+    return p;
+  }
+
+  /**
+   * Retourne la probabilité d'obtenir au moins une valeur.
+   *
+   * @param value la valeur
+   * @return la probabilité
+   */
+  public double atLeast(int value) {
+    return 1.0 - cumulative(value - 1);
+  }
+
+  /**
+   * Retourne l'espérance.
+   *
+   * @return l'espérance
+   */
+  public double mean() {
+    return mean;
+  }
+
+  /**
+   * Retourne la variance.
+   *
+   * @return la variance
+   */
+  public double variance() {
+    return variance;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("[%d..%d] (mean = %.3f, variance = %.3f)", min, getMax(), mean, variance);
+  }
+}
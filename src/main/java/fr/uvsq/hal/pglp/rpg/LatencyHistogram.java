@@ -0,0 +1,195 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * La classe <code>LatencyHistogram</code> compte des durées dans des classes log-linéaires (à la HDR Histogram).
+ * Les durées inférieures à <code>SUB_BUCKETS</code> nanosecondes ont chacune leur classe ;
+ * au-delà, chaque puissance de deux [2^e, 2^(e+1)[ est découpée en <code>SUB_BUCKETS</code> classes de même largeur,
+ * ce qui borne l'erreur relative sur les quantiles à 1/<code>SUB_BUCKETS</code> (6,25 %)
+ * pour un coût d'enregistrement constant.
+ * L'enregistrement n'utilise que des <code>LongAdder</code> et peut être appelé par plusieurs threads.
+ *
+ * @author hal
+ * @version 2022
+ */
+public final class LatencyHistogram {
+  /** Nombre de classes par puissance de deux. */
+  public static final int SUB_BUCKETS = 16;
+
+  private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+
+  /** Nombre de classes : les durées exactes puis les puissances de deux de 2^4 à 2^62. */
+  public static final int BUCKETS = SUB_BUCKETS + (Long.SIZE - 1 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final LongAdder[] buckets = new LongAdder[BUCKETS];
+  private final LongAdder total = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+  /**
+   * Crée un histogramme vide.
+   */
+  public LatencyHistogram() {
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Retourne la classe d'une durée.
+   *
+   * @param nanos la durée en nanosecondes
+   * @return l'indice de la classe
+   */
+  static int bucketOf(long nanos) {
+    if (nanos < SUB_BUCKETS) {
+      return nanos <= 0 ? 0 : (int) nanos;
+    }
+    int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos);
+    int shift = exponent - SUB_BUCKET_BITS;
+    // le bit de poids fort est implicite : les SUB_BUCKET_BITS bits suivants donnent la sous-classe
+    return SUB_BUCKETS + shift * SUB_BUCKETS + (int) (nanos >>> shift & SUB_BUCKETS - 1);
+  }
+
+  /**
+   * Retourne la plus grande durée d'une classe.
+   *
+   * @param bucket l'indice de la classe
+   * @return la borne supérieure (incluse) de la classe, en nanosecondes
+   */
+  static long upperBoundOf(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / SUB_BUCKETS - 1;
+    long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    return lower + (1L << shift) - 1;
+  }
+
+  /**
+   * Enregistre une durée.
+   *
+   * @param nanos la durée en nanosecondes
+   */
+  public void record(long nanos) {
+    buckets[bucketOf(nanos)].increment();
+    total.add(nanos);
+    max.accumulate(nanos);
+  }
+
+  /**
+   * Enregistre plusieurs fois une même durée, par exemple la durée moyenne des opérations d'un lot.
+   *
+   * @param nanos la durée en nanosecondes
+   * @param count le nombre d'enregistrements
+   */
+  public void record(long nanos, long count) {
+    buckets[bucketOf(nanos)].add(count);
+    total.add(nanos * count);
+    max.accumulate(nanos);
+  }
+
+  /**
+   * Remet l'histogramme à zéro.
+   */
+  public void reset() {
+    for (LongAdder bucket : buckets) {
+      bucket.reset();
+    }
+    total.reset();
+    max.reset();
+  }
+
+  /**
+   * Retourne une copie de l'état courant de l'histogramme.
+   * Les enregistrements concurrents à la copie peuvent y figurer partiellement.
+   *
+   * @return la copie
+   */
+  public Snapshot snapshot() {
+    long[] counts = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = buckets[i].sum();
+    }
+    return new Snapshot(counts, total.sum(), max.get());
+  }
+
+  /**
+   * Copie immuable d'un histogramme.
+   */
+  public static final class Snapshot {
+    private final long[] counts;
+    private final long count;
+    private final long total;
+    private final long max;
+
+    private Snapshot(long[] counts, long total, long max) {
+      this.counts = counts;
+      long sum = 0;
+      for (long c : counts) {
+        sum += c;
+      }
+      this.count = sum;
+      this.total = total;
+      this.max = max;
+    }
+
+    /**
+     * Retourne le nombre de durées enregistrées.
+     *
+     * @return le nombre de durées
+     */
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * Retourne la durée moyenne.
+     *
+     * @return la moyenne en nanosecondes (NaN si aucune durée)
+     */
+    public double getMean() {
+      return count == 0 ? Double.NaN : (double) total / count;
+    }
+
+    /**
+     * Retourne la durée maximale.
+     *
+     * @return le maximum en nanosecondes
+     */
+    public long getMax() {
+      return max;
+    }
+
+    /**
+     * Retourne une borne supérieure d'un quantile.
+     *
+     * @param quantile le quantile (entre 0 et 1)
+     * @return la borne supérieure de la classe contenant le quantile, en nanosecondes (0 si aucune durée)
+     */
+    public long getPercentile(double quantile) {
+      if (quantile < 0.0 || quantile > 1.0) {
+        throw new IllegalArgumentException("The quantile should be between 0 and 1.");
+      }
+      long rank = (long) Math.ceil(quantile * count);
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        seen += counts[i];
+        if (seen >= rank && counts[i] > 0) {
+          return Math.min(upperBoundOf(i), max);
+        }
+      }
+      return max;
+    }
+
+    /**
+     * Retourne le nombre de durées par classe.
+     *
+     * @return une copie des compteurs
+     */
+    public long[] getCounts() {
+      return counts.clone();
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package fr.uvsq.hal.pglp.rpg;
+
+/**
+ * L'interface <code>RandomSource</code> représente une source de nombres aléatoires pour les dés.
+ * Une source peut être injectée dans un personnage, un groupe de dés ou une session de jeu.
+ * Toutes les sources reposent sur l'algorithme <code>L64X128MixRandom</code> afin que les tirages
+ * soient reproductibles à partir d'une graine, quelle que soit la JVM.
+ *
+ * @author hal
+ * @version 2022
+ */
+public interface RandomSource {
+  /** Algorithme utilisé par les sources fournies. */
+  String ALGORITHM = "L64X128MixRandom";
+
+  /**
+   * Tire un entier entre 0 (inclus) et la borne (exclue).
+   *
+   * @param bound la borne supérieure (strictement positive)
+   * @return l'entier tiré
+   */
+  int nextInt(int bound);
+
+  /**
+   * Tire plusieurs entiers entre 0 (inclus) et la borne (exclue).
+   * Les valeurs sont celles qu'auraient données autant d'appels successifs à <code>nextInt</code>.
+   *
+   * @param bound la borne supérieure (strictement positive)
+   * @param values le tableau à remplir
+   * @param offset l'indice du premier entier tiré
+   * @param count le nombre d'entiers à tirer
+   */
+  default void nextInts(int bound, int[] values, int offset, int count) {
+    int end = offset + count;
+    for (int i = offset; i < end; i++) {
+      values[i] = nextInt(bound);
+    }
+  }
+
+  /**
+   * Tire un réel entre 0 (inclus) et 1 (exclu).
+   *
+   * @return le réel tiré
+   */
+  double nextDouble();
+
+  /**
+   * Crée une nouvelle source indépendante dérivée de celle-ci.
+   * Le résultat ne dépend que de l'état de la source, ce qui permet de partitionner
+   * un travail de manière reproductible.
+   *
+   * @return la source dérivée
+   */
+  RandomSource split();
+
+  /**
+   * Crée une source initialisée avec une graine.
+   * Cette source n'est pas thread-safe : elle est destinée à un personnage ou une session.
+   *
+   * @param seed la graine
+   * @return la source
+   */
+  static RandomSource of(long seed) {
+    return new SplittableRandomSource(seed);
+  }
+
+  /**
+   * Crée une source initialisée à partir du temps système.
+   *
+   * @return la source
+   */
+  static RandomSource of() {
+    return of(System.nanoTime());
+  }
+
+  /**
+   * Crée une source utilisable simultanément par plusieurs threads.
+   * Chaque thread tire ses valeurs d'un générateur qui lui est propre, obtenu en divisant
+   * un générateur racine initialisé avec la graine.
+   * Les tirages sont reproductibles si les threads utilisent la source pour la première fois
+   * toujours dans le même ordre ; le premier thread obtient les tirages de <code>of(seed)</code>.
+   * C'est la source utilisée par défaut par les dés.
+   *
+   * @param seed la graine du générateur racine
+   * @return la source
+   */
+  static RandomSource threadLocal(long seed) {
+    return new ThreadLocalRandomSource(seed);
+  }
+}
@@ -0,0 +1,172 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * La classe <code>RingBufferRollEventSink</code> conserve les derniers événements
+ * dans un tampon circulaire de taille fixe.
+ * Les événements sont stockés dans des tableaux de types primitifs : l'enregistrement n'alloue aucun objet.
+ * Les événements les plus anciens sont écrasés lorsque le tampon est plein.
+ * Chaque case porte un tampon de séquence publié après l'écriture de l'événement : une copie
+ * ignore les cases en cours d'écriture ou réécrites pendant leur lecture.
+ *
+ * @author hal
+ * @version 2022
+ */
+public class RingBufferRollEventSink implements RollEventSink {
+  /** Capacité maximale du tampon. */
+  public static final int MAX_CAPACITY = 1 << 30;
+
+  private static final String MSG_CAPACITY_INVALID = "The capacity have to be between 1 and " + MAX_CAPACITY + ".";
+  private static final byte NONE = -1;
+
+  private static final Dice[] DICES = Dice.values();
+  private static final DifficultyClass[] DIFFICULTY_CLASSES = DifficultyClass.values();
+  private static final Character.Advantage[] ADVANTAGES = Character.Advantage.values();
+
+  private final int mask;
+  private final byte[] types;
+  private final byte[] dices;
+  private final int[] values;
+  private final int[] modifiers;
+  private final byte[] difficultyClasses;
+  private final byte[] advantages;
+  private final boolean[] successes;
+
+  /** Numéro (plus un) de l'événement publié dans chaque case, négatif pendant l'écriture. */
+  private final AtomicLongArray stamps;
+
+  /** Nombre total d'événements reçus. */
+  private final AtomicLong sequence = new AtomicLong();
+
+  /**
+   * Crée un tampon circulaire.
+   *
+   * @param capacity le nombre minimum d'événements conservés (arrondi à la puissance de 2 supérieure)
+   */
+  public RingBufferRollEventSink(int capacity) {
+    if (capacity <= 0 || capacity > MAX_CAPACITY) {
+      throw new IllegalArgumentException(MSG_CAPACITY_INVALID);
+    }
+    int size = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+    mask = size - 1;
+    types = new byte[size];
+    dices = new byte[size];
+    values = new int[size];
+    modifiers = new int[size];
+    difficultyClasses = new byte[size];
+    advantages = new byte[size];
+    successes = new boolean[size];
+    stamps = new AtomicLongArray(size);
+  }
+
+  private int acquire(long number) {
+    int slot = (int) (number & mask);
+    stamps.setOpaque(slot, -(number + 1));
+    VarHandle.releaseFence();
+    return slot;
+  }
+
+  private void publish(int slot, long number) {
+    stamps.setRelease(slot, number + 1);
+  }
+
+  @Override
+  public void onRoll(Dice dice, int value) {
+    long number = sequence.getAndIncrement();
+    int slot = acquire(number);
+    types[slot] = (byte) RollEvent.Type.Roll.ordinal();
+    dices[slot] = (byte) dice.ordinal();
+    values[slot] = value;
+    modifiers[slot] = 0;
+    difficultyClasses[slot] = NONE;
+    advantages[slot] = NONE;
+    successes[slot] = false;
+    publish(slot, number);
+  }
+
+  @Override
+  public void onCheck(int rolled, int modifier, DifficultyClass difficultyClass, Character.Advantage advantage,
+                      boolean success) {
+    long number = sequence.getAndIncrement();
+    int slot = acquire(number);
+    types[slot] = (byte) RollEvent.Type.Check.ordinal();
+    dices[slot] = (byte) Dice.d20.ordinal();
+    values[slot] = rolled;
+    modifiers[slot] = modifier;
+    difficultyClasses[slot] = (byte) difficultyClass.ordinal();
+    advantages[slot] = (byte) advantage.ordinal();
+    successes[slot] = success;
+    publish(slot, number);
+  }
+
+  /**
+   * Retourne la capacité du tampon.
+   *
+   * @return la capacité
+   */
+  public int getCapacity() {
+    return mask + 1;
+  }
+
+  /**
+   * Retourne le nombre total d'événements reçus depuis la création.
+   *
+   * @return le nombre d'événements
+   */
+  public long getCount() {
+    return sequence.get();
+  }
+
+  /**
+   * Retourne une copie des événements conservés, du plus ancien au plus récent.
+   * Les événements en cours d'enregistrement ou écrasés pendant la copie n'y figurent pas.
+   *
+   * @return les événements
+   */
+  public List<RollEvent> snapshot() {
+    long end = sequence.get();
+    long start = Math.max(0, end - getCapacity());
+    List<RollEvent> events = new ArrayList<>((int) (end - start));
+    for (long i = start; i < end; i++) {
+      int slot = (int) (i & mask);
+      if (stamps.getAcquire(slot) != i + 1) {
+        continue;
+      }
+      byte type = types[slot];
+      byte dice = dices[slot];
+      int value = values[slot];
+      int modifier = modifiers[slot];
+      byte difficultyClass = difficultyClasses[slot];
+      byte advantage = advantages[slot];
+      boolean success = successes[slot];
+      VarHandle.acquireFence();
+      if (stamps.get(slot) != i + 1) {
+        continue;
+      }
+      RollEvent event = decode(type, dice, value, modifier, difficultyClass, advantage, success);
+      if (event != null) {
+        events.add(event);
+      }
+    }
+    return events;
+  }
+
+  /** Reconstruit un événement, ou retourne null si les champs lus sont incohérents. */
+  private static RollEvent decode(byte type, byte dice, int value, int modifier, byte difficultyClass,
+                                  byte advantage, boolean success) {
+    if (type == RollEvent.Type.Roll.ordinal() && dice >= 0 && dice < DICES.length) {
+      return RollEvent.roll(DICES[dice], value);
+    }
+    if (type == RollEvent.Type.Check.ordinal()
+        && difficultyClass >= 0 && difficultyClass < DIFFICULTY_CLASSES.length
+        && advantage >= 0 && advantage < ADVANTAGES.length) {
+      return RollEvent.check(value, modifier, DIFFICULTY_CLASSES[difficultyClass], ADVANTAGES[advantage], success);
+    }
+    return null;
+  }
+}
@@ -0,0 +1,57 @@
+package fr.uvsq.hal.pglp.rpg;
+
+/**
+ * L'enregistrement <code>RollEvent</code> représente un lancer de dé ou un test.
+ * Pour un lancer, seuls le dé et la valeur sont significatifs.
+ *
+ * @param type le type d'événement
+ * @param dice le dé lancé (d20 pour un test)
+ * @param value la valeur obtenue (le d20 retenu pour un test)
+ * @param modifier le modificateur appliqué au test
+ * @param difficultyClass le degré de difficulté du test (null pour un lancer)
+ * @param advantage l'avantage ou le désavantage du test (null pour un lancer)
+ * @param success true si le test est réussi
+ *
+ * @author hal
+ * @version 2022
+ */
+public record RollEvent(
+    Type type,
+    Dice dice,
+    int value,
+    int modifier,
+    DifficultyClass difficultyClass,
+    Character.Advantage advantage,
+    boolean success) {
+
+  /** Type d'événement. */
+  public enum Type {
+    Roll, Check
+  }
+
+  /**
+   * Crée un événement de lancer de dé.
+   *
+   * @param dice le dé
+   * @param value la valeur obtenue
+   * @return l'événement
+   */
+  public static RollEvent roll(Dice dice, int value) {
+    return new RollEvent(Type.Roll, dice, value, 0, null, null, false);
+  }
+
+  /**
+   * Crée un événement de test.
+   *
+   * @param rolled la valeur du d20 retenue
+   * @param modifier le modificateur
+   * @param difficultyClass le degré de difficulté
+   * @param advantage avantage ou désavantage
+   * @param success true si le test est réussi
+   * @return l'événement
+   */
+  public static RollEvent check(
+      int rolled, int modifier, DifficultyClass difficultyClass, Character.Advantage advantage, boolean success) {
+    return new RollEvent(Type.Check, Dice.d20, rolled, modifier, difficultyClass, advantage, success);
+  }
+}
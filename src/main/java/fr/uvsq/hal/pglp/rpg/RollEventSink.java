@@ -0,0 +1,31 @@
+package fr.uvsq.hal.pglp.rpg;
+
+/**
+ * L'interface <code>RollEventSink</code> reçoit les lancers de dés et les tests.
+ * Les méthodes sont appelées sur le chemin critique : une implémentation doit être rapide
+ * et ne pas bloquer.
+ *
+ * @author hal
+ * @version 2022
+ */
+public interface RollEventSink {
+  /**
+   * Notifie un lancer de dé.
+   *
+   * @param dice le dé
+   * @param value la valeur obtenue
+   */
+  void onRoll(Dice dice, int value);
+
+  /**
+   * Notifie un test.
+   *
+   * @param rolled la valeur du d20 retenue
+   * @param modifier le modificateur
+   * @param difficultyClass le degré de difficulté
+   * @param advantage avantage ou désavantage
+   * @param success true si le test est réussi
+   */
+  void onCheck(int rolled, int modifier, DifficultyClass difficultyClass, Character.Advantage advantage,
+               boolean success);
+}
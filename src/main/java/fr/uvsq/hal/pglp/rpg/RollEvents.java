@@ -0,0 +1,65 @@
+package fr.uvsq.hal.pglp.rpg;
+
+/**
+ * La classe <code>RollEvents</code> aiguille les lancers et les tests vers le récepteur configuré.
+ * Par défaut, aucun récepteur n'est installé et la notification se limite à un test de nullité.
+ *
+ * @author hal
+ * @version 2022
+ */
+public final class RollEvents {
+  private static volatile RollEventSink sink;
+
+  private RollEvents() {
+  }
+
+  /**
+   * Installe un récepteur d'événements.
+   *
+   * @param sink le récepteur (null pour désactiver les notifications)
+   */
+  public static void setSink(RollEventSink sink) {
+    RollEvents.sink = sink;
+  }
+
+  /**
+   * Retourne le récepteur d'événements installé.
+   *
+   * @return le récepteur ou null s'il n'y en a pas
+   */
+  public static RollEventSink getSink() {
+    return sink;
+  }
+
+  /**
+   * Désactive les notifications.
+   */
+  public static void disable() {
+    sink = null;
+  }
+
+  static void roll(Dice dice, int value) {
+    RollEventSink currentSink = sink;
+    if (currentSink != null) {
+      currentSink.onRoll(dice, value);
+    }
+  }
+
+  static void rolls(Dice dice, int[] values, int offset, int count) {
+    RollEventSink currentSink = sink;
+    if (currentSink != null) {
+      int end = offset + count;
+      for (int i = offset; i < end; i++) {
+        currentSink.onRoll(dice, values[i]);
+      }
+    }
+  }
+
+  static void check(int rolled, int modifier, DifficultyClass difficultyClass, Character.Advantage advantage,
+                    boolean success) {
+    RollEventSink currentSink = sink;
+    if (currentSink != null) {
+      currentSink.onCheck(rolled, modifier, difficultyClass, advantage, success);
+    }
+  }
+}
@@ -0,0 +1,215 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * La classe <code>RollJournal</code> est un récepteur qui consigne les lancers et les tests
+ * dans un journal binaire en ajout seul.
+ * Le journal commence par un en-tête (identifiant, version, graine de la session)
+ * suivi d'un enregistrement par événement, précédé de sa longueur :
+ * <ul>
+ *   <li>lancer : type, dé, valeur (3 octets) ;</li>
+ *   <li>test : type, d20 retenu, modificateur, difficulté, avantage, réussite (6 octets).</li>
+ * </ul>
+ * Les valeurs et modificateurs sont consignés sur un octet signé : un événement hors de cet intervalle est rejeté.
+ * Les enregistrements sont accumulés dans un buffer et écrits par blocs dans un <code>FileChannel</code>.
+ * Après une erreur d'écriture, le journal ne correspond plus à la session : il refuse alors tout nouvel événement.
+ * Le journal se relit et se rejoue avec <code>RollJournalReader</code>.
+ *
+ * @author hal
+ * @version 2022
+ */
+public class RollJournal implements RollEventSink, Closeable {
+  /** Identifiant des fichiers journaux. */
+  static final int MAGIC = 0x524a4e4c;
+
+  /** Version du format. */
+  static final byte VERSION = 1;
+
+  /** Taille de l'en-tête. */
+  static final int HEADER_SIZE = Integer.BYTES + 1 + Long.BYTES;
+
+  static final byte ROLL = 0;
+  static final byte CHECK = 1;
+  static final int ROLL_SIZE = 3;
+  static final int CHECK_SIZE = 6;
+
+  /** Taille par défaut du buffer d'écriture. */
+  public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+  private static final String MSG_NOT_RECORDABLE = "The %s %d cannot be recorded on one byte.";
+  private static final String MSG_FAILED = "The journal failed to write its records.";
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer;
+  private final long seed;
+  private long eventCount;
+  private boolean started;
+  private RandomSource previousSource;
+  private RollEventSink previousSink;
+  private IOException failure;
+
+  /**
+   * Crée un journal, en remplaçant le fichier s'il existe.
+   *
+   * @param path le fichier du journal
+   * @param seed la graine de la session journalisée
+   * @throws IOException en cas d'erreur d'entrée/sortie
+   */
+  public RollJournal(Path path, long seed) throws IOException {
+    this(path, seed, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Crée un journal avec une taille de buffer donnée, en remplaçant le fichier s'il existe.
+   *
+   * @param path le fichier du journal
+   * @param seed la graine de la session journalisée
+   * @param bufferSize la taille du buffer d'écriture
+   * @throws IOException en cas d'erreur d'entrée/sortie
+   */
+  public RollJournal(Path path, long seed, int bufferSize) throws IOException {
+    this.seed = seed;
+    this.buffer = ByteBuffer.allocateDirect(Math.max(bufferSize, HEADER_SIZE + 1 + CHECK_SIZE));
+    this.channel = FileChannel.open(path,
+      StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    buffer.putInt(MAGIC).put(VERSION).putLong(seed);
+  }
+
+  /**
+   * Installe la graine de la session comme source par défaut des dés
+   * puis ce journal comme récepteur des événements.
+   * La source par défaut et le récepteur précédents sont rétablis à la fermeture du journal.
+   *
+   * @return le journal
+   */
+  public synchronized RollJournal start() {
+    if (!started) {
+      previousSource = Dice.getRandomSource();
+      previousSink = RollEvents.getSink();
+      started = true;
+    }
+    Dice.setSeed(seed);
+    RollEvents.setSink(this);
+    return this;
+  }
+
+  /**
+   * Retourne la graine de la session.
+   *
+   * @return la graine
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Retourne le nombre d'événements consignés.
+   *
+   * @return le nombre d'événements
+   */
+  public synchronized long getEventCount() {
+    return eventCount;
+  }
+
+  @Override
+  public synchronized void onRoll(Dice dice, int value) {
+    checkNotFailed();
+    byte recordedValue = toByte("value", value);
+    reserve(1 + ROLL_SIZE);
+    buffer.put((byte) ROLL_SIZE).put(ROLL).put((byte) dice.ordinal()).put(recordedValue);
+    eventCount++;
+  }
+
+  @Override
+  public synchronized void onCheck(int rolled, int modifier, DifficultyClass difficultyClass,
+                                   Character.Advantage advantage, boolean success) {
+    checkNotFailed();
+    byte recordedRoll = toByte("value", rolled);
+    byte recordedModifier = toByte("modifier", modifier);
+    reserve(1 + CHECK_SIZE);
+    buffer.put((byte) CHECK_SIZE).put(CHECK)
+      .put(recordedRoll)
+      .put(recordedModifier)
+      .put((byte) difficultyClass.ordinal())
+      .put((byte) advantage.ordinal())
+      .put((byte) (success ? 1 : 0));
+    eventCount++;
+  }
+
+  private static byte toByte(String field, int value) {
+    if (value < Byte.MIN_VALUE || value > Byte.MAX_VALUE) {
+      throw new IllegalArgumentException(String.format(MSG_NOT_RECORDABLE, field, value));
+    }
+    return (byte) value;
+  }
+
+  private void checkNotFailed() {
+    if (failure != null) {
+      throw new IllegalStateException(MSG_FAILED, failure);
+    }
+  }
+
+  private void reserve(int size) {
+    if (buffer.remaining() < size) {
+      flush();
+    }
+  }
+
+  /**
+   * Écrit dans le fichier les enregistrements en attente.
+   * En cas d'erreur, les enregistrements non écrits sont conservés et le journal refuse les événements suivants.
+   *
+   * @throws IllegalStateException si une écriture précédente a échoué
+   */
+  public synchronized void flush() {
+    checkNotFailed();
+    buffer.flip();
+    try {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    } catch (IOException e) {
+      failure = e;
+      throw new UncheckedIOException(e);
+    } finally {
+      buffer.compact();
+    }
+  }
+
+  /**
+   * Rétablit le récepteur précédent si le journal est installé et la source par défaut des dés
+   * si le journal a été démarré, puis écrit les enregistrements en attente et ferme le fichier.
+   *
+   * @throws IOException en cas d'erreur d'entrée/sortie, y compris d'une écriture précédente
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (RollEvents.getSink() == this) {
+      RollEvents.setSink(started ? previousSink : null);
+    }
+    if (started) {
+      Dice.setRandomSource(previousSource);
+      previousSource = null;
+      previousSink = null;
+      started = false;
+    }
+    try (channel) {
+      if (failure != null) {
+        throw new IOException(MSG_FAILED, failure);
+      }
+      try {
+        flush();
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      channel.force(false);
+    }
+  }
+}
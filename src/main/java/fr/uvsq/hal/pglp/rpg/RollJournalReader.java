@@ -0,0 +1,203 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * La classe <code>RollJournalReader</code> relit un journal écrit par <code>RollJournal</code>
+ * et permet de rejouer la session correspondante.
+ * Le rejeu réinitialise la source par défaut des dés avec la graine du journal, exécute la session
+ * et compare chaque événement produit avec l'événement consigné, puis rétablit la source précédente.
+ * Il suppose que la session n'utilise que la source par défaut des dés, depuis un seul thread.
+ *
+ * @author hal
+ * @version 2022
+ */
+public class RollJournalReader implements Iterator<RollEvent>, Closeable {
+  private static final String MSG_INVALID_JOURNAL = "The file is not a roll journal.";
+  private static final String MSG_TRUNCATED_JOURNAL = "The journal is truncated.";
+  private static final String MSG_INVALID_RECORD = "The journal contains an invalid record.";
+
+  private static final Dice[] DICES = Dice.values();
+  private static final DifficultyClass[] DIFFICULTY_CLASSES = DifficultyClass.values();
+  private static final Character.Advantage[] ADVANTAGES = Character.Advantage.values();
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer;
+  private final long seed;
+
+  /**
+   * Résultat d'un rejeu.
+   *
+   * @param events le nombre d'événements comparés
+   * @param expected l'événement consigné qui diffère (null si le rejeu est identique)
+   * @param actual l'événement produit qui diffère (null si le rejeu est identique ou s'il manque des événements)
+   */
+  public record ReplayResult(long events, RollEvent expected, RollEvent actual) {
+    /**
+     * Indique si la session rejouée a produit exactement les événements du journal.
+     *
+     * @return true si le rejeu est identique, false sinon
+     */
+    public boolean isIdentical() {
+      return expected == null && actual == null;
+    }
+  }
+
+  /**
+   * Ouvre un journal.
+   *
+   * @param path le fichier du journal
+   * @throws IOException en cas d'erreur d'entrée/sortie
+   * @throws IllegalArgumentException si le fichier n'est pas un journal
+   */
+  public RollJournalReader(Path path) throws IOException {
+    channel = FileChannel.open(path, StandardOpenOption.READ);
+    buffer = ByteBuffer.allocateDirect(RollJournal.DEFAULT_BUFFER_SIZE).limit(0);
+    try {
+      if (!fill(RollJournal.HEADER_SIZE) || buffer.getInt() != RollJournal.MAGIC
+          || buffer.get() != RollJournal.VERSION) {
+        throw new IllegalArgumentException(MSG_INVALID_JOURNAL);
+      }
+      seed = buffer.getLong();
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Retourne la graine de la session journalisée.
+   *
+   * @return la graine
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  private boolean fill(int size) throws IOException {
+    if (buffer.remaining() >= size) {
+      return true;
+    }
+    buffer.compact();
+    int read = 0;
+    while (buffer.position() < size && read >= 0) {
+      read = channel.read(buffer);
+    }
+    buffer.flip();
+    return buffer.remaining() >= size;
+  }
+
+  @Override
+  public boolean hasNext() {
+    try {
+      return fill(1);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public RollEvent next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    int length = Byte.toUnsignedInt(buffer.get(buffer.position()));
+    if (length != RollJournal.ROLL_SIZE && length != RollJournal.CHECK_SIZE) {
+      throw new IllegalStateException(MSG_INVALID_RECORD);
+    }
+    try {
+      if (!fill(1 + length)) {
+        throw new IllegalStateException(MSG_TRUNCATED_JOURNAL);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    buffer.get();
+    byte type = buffer.get();
+    if (type == RollJournal.ROLL && length == RollJournal.ROLL_SIZE) {
+      return RollEvent.roll(element(DICES, buffer.get()), buffer.get());
+    }
+    if (type == RollJournal.CHECK && length == RollJournal.CHECK_SIZE) {
+      return RollEvent.check(buffer.get(), buffer.get(), element(DIFFICULTY_CLASSES, buffer.get()),
+        element(ADVANTAGES, buffer.get()), buffer.get() != 0);
+    }
+    throw new IllegalStateException(MSG_INVALID_RECORD);
+  }
+
+  private static <T> T element(T[] values, byte ordinal) {
+    if (ordinal < 0 || ordinal >= values.length) {
+      throw new IllegalStateException(MSG_INVALID_RECORD);
+    }
+    return values[ordinal];
+  }
+
+  /**
+   * Rejoue une session et la compare au journal, à partir de la position courante du lecteur.
+   *
+   * @param session la session à rejouer
+   * @return le résultat du rejeu
+   */
+  public ReplayResult replay(Runnable session) {
+    RollEventSink previousSink = RollEvents.getSink();
+    RandomSource previousSource = Dice.getRandomSource();
+    VerifyingSink verifier = new VerifyingSink();
+    Dice.setSeed(seed);
+    RollEvents.setSink(verifier);
+    try {
+      session.run();
+    } finally {
+      RollEvents.setSink(previousSink);
+      Dice.setRandomSource(previousSource);
+    }
+    if (!verifier.mismatch && hasNext()) {
+      verifier.expected = next();
+    }
+    return new ReplayResult(verifier.events, verifier.expected, verifier.actual);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /** Récepteur comparant les événements produits avec ceux du journal. */
+  private final class VerifyingSink implements RollEventSink {
+    private long events;
+    private boolean mismatch;
+    private RollEvent expected;
+    private RollEvent actual;
+
+    private void verify(RollEvent event) {
+      if (mismatch) {
+        return;
+      }
+      RollEvent recorded = hasNext() ? next() : null;
+      if (event.equals(recorded)) {
+        events++;
+      } else {
+        mismatch = true;
+        expected = recorded;
+        actual = event;
+      }
+    }
+
+    @Override
+    public void onRoll(Dice dice, int value) {
+      verify(RollEvent.roll(dice, value));
+    }
+
+    @Override
+    public void onCheck(int rolled, int modifier, DifficultyClass difficultyClass, Character.Advantage advantage,
+                        boolean success) {
+      verify(RollEvent.check(rolled, modifier, difficultyClass, advantage, success));
+    }
+  }
+}
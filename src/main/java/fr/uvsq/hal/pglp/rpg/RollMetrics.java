@@ -0,0 +1,450 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * La classe <code>RollMetrics</code> mesure les lancers, les tests et la génération de personnages.
+ * Les mesures sont désactivées par défaut : le coût se limite alors à la lecture d'un booléen.
+ * Une fois activées, elles comptent les lancers par type de dé, les lancers de groupes de dés,
+ * les tests et leurs réussites par degré de difficulté et avantage, et mesurent les durées des lancers
+ * de groupes, des tests et des générations dans des {@link LatencyHistogram}.
+ * Les lancers d'un dé seul sont seulement comptés, leur durée étant inférieure au coût d'une mesure.
+ * Les tirages du mode <code>Rejection</code> sont ceux comptés par {@link AbilityScoresSampler}.
+ * L'état courant est disponible par {@link #snapshot()} et via JMX ({@link #register()}).
+ *
+ * @author hal
+ * @version 2022
+ */
+public final class RollMetrics {
+  /** Nom JMX des mesures. */
+  public static final String OBJECT_NAME = "fr.uvsq.hal.pglp.rpg:type=RollMetrics";
+
+  private static final long DISABLED = Long.MIN_VALUE;
+
+  private static final Dice[] DICES = Dice.values();
+  private static final DifficultyClass[] DIFFICULTIES = DifficultyClass.values();
+  private static final Character.Advantage[] ADVANTAGES = Character.Advantage.values();
+
+  private static volatile boolean enabled;
+
+  private static final LongAdder[] DICE_ROLLS = adders(DICES.length);
+  private static final LongAdder[] CHECKS = adders(DIFFICULTIES.length * ADVANTAGES.length);
+  private static final LongAdder[] SUCCESSES = adders(DIFFICULTIES.length * ADVANTAGES.length);
+  private static final LatencyHistogram GROUP_ROLL_LATENCY = new LatencyHistogram();
+  private static final LatencyHistogram CHECK_LATENCY = new LatencyHistogram();
+  private static final LatencyHistogram GENERATION_LATENCY = new LatencyHistogram();
+
+  private RollMetrics() {
+  }
+
+  private static LongAdder[] adders(int length) {
+    LongAdder[] adders = new LongAdder[length];
+    for (int i = 0; i < length; i++) {
+      adders[i] = new LongAdder();
+    }
+    return adders;
+  }
+
+  private static int checkIndex(DifficultyClass difficultyClass, Character.Advantage advantage) {
+    return difficultyClass.ordinal() * ADVANTAGES.length + advantage.ordinal();
+  }
+
+  /**
+   * Indique si les mesures sont activées.
+   *
+   * @return true si les mesures sont activées
+   */
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Active ou désactive les mesures.
+   *
+   * @param enabled true pour activer les mesures
+   */
+  public static void setEnabled(boolean enabled) {
+    RollMetrics.enabled = enabled;
+  }
+
+  /**
+   * Remet les mesures à zéro, y compris les statistiques de {@link AbilityScoresSampler}.
+   */
+  public static void reset() {
+    for (LongAdder adder : DICE_ROLLS) {
+      adder.reset();
+    }
+    for (int i = 0; i < CHECKS.length; i++) {
+      CHECKS[i].reset();
+      SUCCESSES[i].reset();
+    }
+    GROUP_ROLL_LATENCY.reset();
+    CHECK_LATENCY.reset();
+    GENERATION_LATENCY.reset();
+    AbilityScoresSampler.resetStatistics();
+  }
+
+  static long start() {
+    return enabled ? System.nanoTime() : DISABLED;
+  }
+
+  static void roll(Dice dice) {
+    if (enabled) {
+      DICE_ROLLS[dice.ordinal()].increment();
+    }
+  }
+
+  static void rolls(Dice dice, int count) {
+    if (enabled) {
+      DICE_ROLLS[dice.ordinal()].add(count);
+    }
+  }
+
+  static void groupRoll(long start) {
+    if (start != DISABLED) {
+      GROUP_ROLL_LATENCY.record(System.nanoTime() - start);
+    }
+  }
+
+  static void groupRolls(long start, int count) {
+    if (start != DISABLED && count > 0) {
+      GROUP_ROLL_LATENCY.record((System.nanoTime() - start) / count, count);
+    }
+  }
+
+  static void outcome(DifficultyClass difficultyClass, Character.Advantage advantage, boolean success) {
+    if (enabled) {
+      int index = checkIndex(difficultyClass, advantage);
+      CHECKS[index].increment();
+      if (success) {
+        SUCCESSES[index].increment();
+      }
+    }
+  }
+
+  static void checks(long start, int count) {
+    if (start != DISABLED && count > 0) {
+      CHECK_LATENCY.record((System.nanoTime() - start) / count, count);
+    }
+  }
+
+  static void generation(long start) {
+    if (start != DISABLED) {
+      GENERATION_LATENCY.record(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Retourne une copie de l'état courant des mesures.
+   *
+   * @return la copie
+   */
+  public static Snapshot snapshot() {
+    long[] diceRolls = new long[DICE_ROLLS.length];
+    for (int i = 0; i < diceRolls.length; i++) {
+      diceRolls[i] = DICE_ROLLS[i].sum();
+    }
+    long[] checks = new long[CHECKS.length];
+    long[] successes = new long[SUCCESSES.length];
+    for (int i = 0; i < checks.length; i++) {
+      checks[i] = CHECKS[i].sum();
+      successes[i] = SUCCESSES[i].sum();
+    }
+    return new Snapshot(diceRolls, checks, successes, GROUP_ROLL_LATENCY.snapshot(), CHECK_LATENCY.snapshot(),
+      GENERATION_LATENCY.snapshot(), AbilityScoresSampler.getRejectionAttempts(),
+      AbilityScoresSampler.getAcceptanceRate());
+  }
+
+  /**
+   * Enregistre les mesures auprès du serveur JMX de la plateforme sous le nom {@link #OBJECT_NAME}.
+   * Un enregistrement déjà effectué est conservé.
+   *
+   * @return le nom JMX des mesures
+   */
+  public static ObjectName register() {
+    ObjectName name = objectName();
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      server.registerMBean(new JmxAdapter(), name);
+    } catch (InstanceAlreadyExistsException e) {
+      // déjà enregistré
+    } catch (JMException e) {
+      throw new IllegalStateException(e);
+    }
+    return name;
+  }
+
+  /**
+   * Retire les mesures du serveur JMX de la plateforme.
+   */
+  public static void unregister() {
+    try {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName());
+    } catch (InstanceNotFoundException e) {
+      // pas enregistré
+    } catch (JMException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static ObjectName objectName() {
+    try {
+      return new ObjectName(OBJECT_NAME);
+    } catch (MalformedObjectNameException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Copie immuable des mesures.
+   */
+  public static final class Snapshot {
+    private final long[] diceRolls;
+    private final long[] checks;
+    private final long[] successes;
+    private final LatencyHistogram.Snapshot groupRollLatency;
+    private final LatencyHistogram.Snapshot checkLatency;
+    private final LatencyHistogram.Snapshot generationLatency;
+    private final long rejectionAttempts;
+    private final double acceptanceRate;
+
+    private Snapshot(long[] diceRolls, long[] checks, long[] successes, LatencyHistogram.Snapshot groupRollLatency,
+                     LatencyHistogram.Snapshot checkLatency, LatencyHistogram.Snapshot generationLatency,
+                     long rejectionAttempts, double acceptanceRate) {
+      this.diceRolls = diceRolls;
+      this.checks = checks;
+      this.successes = successes;
+      this.groupRollLatency = groupRollLatency;
+      this.checkLatency = checkLatency;
+      this.generationLatency = generationLatency;
+      this.rejectionAttempts = rejectionAttempts;
+      this.acceptanceRate = acceptanceRate;
+    }
+
+    /**
+     * Retourne le nombre de lancers d'un type de dé.
+     *
+     * @param dice le type de dé
+     * @return le nombre de lancers
+     */
+    public long getRolls(Dice dice) {
+      return diceRolls[dice.ordinal()];
+    }
+
+    /**
+     * Retourne le nombre de lancers de groupes de dés.
+     *
+     * @return le nombre de lancers
+     */
+    public long getGroupRolls() {
+      return groupRollLatency.getCount();
+    }
+
+    /**
+     * Retourne le nombre de tests.
+     *
+     * @return le nombre de tests
+     */
+    public long getChecks() {
+      long sum = 0;
+      for (long count : checks) {
+        sum += count;
+      }
+      return sum;
+    }
+
+    /**
+     * Retourne le nombre de tests pour un degré de difficulté et un avantage.
+     *
+     * @param difficultyClass le degré de difficulté
+     * @param advantage avantage ou désavantage
+     * @return le nombre de tests
+     */
+    public long getChecks(DifficultyClass difficultyClass, Character.Advantage advantage) {
+      return checks[checkIndex(difficultyClass, advantage)];
+    }
+
+    /**
+     * Retourne le nombre de tests réussis pour un degré de difficulté et un avantage.
+     *
+     * @param difficultyClass le degré de difficulté
+     * @param advantage avantage ou désavantage
+     * @return le nombre de réussites
+     */
+    public long getSuccesses(DifficultyClass difficultyClass, Character.Advantage advantage) {
+      return successes[checkIndex(difficultyClass, advantage)];
+    }
+
+    /**
+     * Retourne le taux de réussite des tests pour un degré de difficulté et un avantage.
+     *
+     * @param difficultyClass le degré de difficulté
+     * @param advantage avantage ou désavantage
+     * @return le taux de réussite (NaN si aucun test)
+     */
+    public double getSuccessRate(DifficultyClass difficultyClass, Character.Advantage advantage) {
+      int index = checkIndex(difficultyClass, advantage);
+      return checks[index] == 0 ? Double.NaN : (double) successes[index] / checks[index];
+    }
+
+    /**
+     * Retourne les durées des lancers de groupes de dés.
+     *
+     * @return l'histogramme des durées
+     */
+    public LatencyHistogram.Snapshot getGroupRollLatency() {
+      return groupRollLatency;
+    }
+
+    /**
+     * Retourne les durées des tests.
+     *
+     * @return l'histogramme des durées
+     */
+    public LatencyHistogram.Snapshot getCheckLatency() {
+      return checkLatency;
+    }
+
+    /**
+     * Retourne les durées de génération des scores des personnages.
+     *
+     * @return l'histogramme des durées
+     */
+    public LatencyHistogram.Snapshot getGenerationLatency() {
+      return generationLatency;
+    }
+
+    /**
+     * Retourne le nombre de personnages générés.
+     *
+     * @return le nombre de générations
+     */
+    public long getGenerations() {
+      return generationLatency.getCount();
+    }
+
+    /**
+     * Retourne le nombre de tirages de six scores effectués par le mode <code>Rejection</code>.
+     *
+     * @return le nombre de tirages
+     */
+    public long getRejectionAttempts() {
+      return rejectionAttempts;
+    }
+
+    /**
+     * Retourne le taux d'acceptation observé du mode <code>Rejection</code>.
+     *
+     * @return le taux d'acceptation (NaN si aucun tirage)
+     */
+    public double getAcceptanceRate() {
+      return acceptanceRate;
+    }
+  }
+
+  /** Adaptateur JMX des mesures. */
+  private static final class JmxAdapter implements RollMetricsMXBean {
+    @Override
+    public boolean isEnabled() {
+      return RollMetrics.isEnabled();
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+      RollMetrics.setEnabled(enabled);
+    }
+
+    @Override
+    public Map<String, Long> getDiceRolls() {
+      Snapshot snapshot = snapshot();
+      Map<String, Long> rolls = new LinkedHashMap<>();
+      for (Dice dice : DICES) {
+        rolls.put(dice.name(), snapshot.getRolls(dice));
+      }
+      return rolls;
+    }
+
+    @Override
+    public long getGroupRolls() {
+      return GROUP_ROLL_LATENCY.snapshot().getCount();
+    }
+
+    @Override
+    public double getGroupRollMeanLatency() {
+      return GROUP_ROLL_LATENCY.snapshot().getMean();
+    }
+
+    @Override
+    public long getGroupRollP99Latency() {
+      return GROUP_ROLL_LATENCY.snapshot().getPercentile(0.99);
+    }
+
+    @Override
+    public Map<String, Long> getChecks() {
+      Snapshot snapshot = snapshot();
+      Map<String, Long> checks = new LinkedHashMap<>();
+      for (DifficultyClass difficultyClass : DIFFICULTIES) {
+        for (Character.Advantage advantage : ADVANTAGES) {
+          checks.put(difficultyClass + "/" + advantage, snapshot.getChecks(difficultyClass, advantage));
+        }
+      }
+      return checks;
+    }
+
+    @Override
+    public Map<String, Double> getCheckSuccessRates() {
+      Snapshot snapshot = snapshot();
+      Map<String, Double> rates = new LinkedHashMap<>();
+      for (DifficultyClass difficultyClass : DIFFICULTIES) {
+        for (Character.Advantage advantage : ADVANTAGES) {
+          rates.put(difficultyClass + "/" + advantage, snapshot.getSuccessRate(difficultyClass, advantage));
+        }
+      }
+      return rates;
+    }
+
+    @Override
+    public double getCheckMeanLatency() {
+      return CHECK_LATENCY.snapshot().getMean();
+    }
+
+    @Override
+    public long getCheckP99Latency() {
+      return CHECK_LATENCY.snapshot().getPercentile(0.99);
+    }
+
+    @Override
+    public long getGenerations() {
+      return GENERATION_LATENCY.snapshot().getCount();
+    }
+
+    @Override
+    public double getGenerationMeanLatency() {
+      return GENERATION_LATENCY.snapshot().getMean();
+    }
+
+    @Override
+    public long getRejectionAttempts() {
+      return AbilityScoresSampler.getRejectionAttempts();
+    }
+
+    @Override
+    public double getAcceptanceRate() {
+      return AbilityScoresSampler.getAcceptanceRate();
+    }
+
+    @Override
+    public void reset() {
+      RollMetrics.reset();
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import java.util.Map;
+
+/**
+ * L'interface <code>RollMetricsMXBean</code> expose les mesures de {@link RollMetrics} via JMX.
+ * Les durées sont exprimées en nanosecondes.
+ *
+ * @author hal
+ * @version 2022
+ */
+public interface RollMetricsMXBean {
+  /**
+   * Indique si les mesures sont activées.
+   *
+   * @return true si les mesures sont activées
+   */
+  boolean isEnabled();
+
+  /**
+   * Active ou désactive les mesures.
+   *
+   * @param enabled true pour activer les mesures
+   */
+  void setEnabled(boolean enabled);
+
+  /**
+   * Retourne le nombre de lancers par type de dé.
+   *
+   * @return le nombre de lancers indexé par le nom du dé
+   */
+  Map<String, Long> getDiceRolls();
+
+  /**
+   * Retourne le nombre de lancers de groupes de dés.
+   *
+   * @return le nombre de lancers
+   */
+  long getGroupRolls();
+
+  /**
+   * Retourne la durée moyenne d'un lancer de groupe de dés.
+   *
+   * @return la moyenne
+   */
+  double getGroupRollMeanLatency();
+
+  /**
+   * Retourne une borne du 99e centile de la durée d'un lancer de groupe de dés.
+   *
+   * @return la borne
+   */
+  long getGroupRollP99Latency();
+
+  /**
+   * Retourne le nombre de tests par degré de difficulté et avantage.
+   *
+   * @return le nombre de tests indexé par "difficulté/avantage"
+   */
+  Map<String, Long> getChecks();
+
+  /**
+   * Retourne le taux de réussite des tests par degré de difficulté et avantage.
+   *
+   * @return le taux de réussite indexé par "difficulté/avantage"
+   */
+  Map<String, Double> getCheckSuccessRates();
+
+  /**
+   * Retourne la durée moyenne d'un test.
+   *
+   * @return la moyenne
+   */
+  double getCheckMeanLatency();
+
+  /**
+   * Retourne une borne du 99e centile de la durée d'un test.
+   *
+   * @return la borne
+   */
+  long getCheckP99Latency();
+
+  /**
+   * Retourne le nombre de personnages générés.
+   *
+   * @return le nombre de générations
+   */
+  long getGenerations();
+
+  /**
+   * Retourne la durée moyenne de génération des scores d'un personnage.
+   *
+   * @return la moyenne
+   */
+  double getGenerationMeanLatency();
+
+  /**
+   * Retourne le nombre de tirages de six scores effectués par le mode <code>Rejection</code>.
+   *
+   * @return le nombre de tirages
+   */
+  long getRejectionAttempts();
+
+  /**
+   * Retourne le taux d'acceptation observé du mode <code>Rejection</code>.
+   *
+   * @return le taux d'acceptation
+   */
+  double getAcceptanceRate();
+
+  /**
+   * Remet les mesures à zéro.
+   */
+  void reset();
+}
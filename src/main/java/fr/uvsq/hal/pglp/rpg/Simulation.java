@@ -0,0 +1,429 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongConsumer;
+
+/**
+ * La classe <code>Simulation</code> estime par la méthode de Monte-Carlo les chances de réussite
+ * d'une série de tests pour des personnages générés aléatoirement (équilibrage).
+ * Chaque essai génère les scores d'un personnage puis réalise tous les tests.
+ * Les essais sont regroupés en blocs exécutés dans un <code>ForkJoinPool</code>, chaque bloc disposant
+ * de sa propre source aléatoire dérivée de la graine ; les résultats sont agrégés dans des histogrammes
+ * sans conserver d'objet par essai.
+ * La simulation s'exécute par tours d'un nombre fixe de blocs : après chaque tour, la progression est
+ * signalée et la simulation peut s'arrêter si les intervalles de confiance sont assez précis.
+ * Le résultat ne dépend que de la graine et de la configuration, pas du nombre de cœurs.
+ *
+ * @author hal
+ * @version 2022
+ */
+public class Simulation {
+  /** Nombre d'essais par bloc. */
+  public static final int CHUNK_SIZE = 1 << 14;
+
+  /** Nombre de blocs par tour. */
+  public static final int CHUNKS_PER_ROUND = 64;
+
+  /** Décalage des histogrammes de totaux (le total t est compté à l'indice t + TOTAL_OFFSET). */
+  public static final int TOTAL_OFFSET = 16;
+
+  /** Taille des histogrammes de totaux. */
+  public static final int TOTAL_HISTOGRAM_SIZE = 64;
+
+  /** Quantile de la loi normale pour un intervalle de confiance à 95 %. */
+  private static final double Z_95 = 1.959964;
+
+  private static final String MSG_TRIALS_POSITIVE = "The number of trials have to be positive.";
+  private static final String MSG_NO_CHECK = "At least one check is required.";
+
+  private static final Ability[] ABILITIES = Ability.values();
+
+  /**
+   * Test réalisé à chaque essai, portant sur une compétence ou une caractéristique.
+   *
+   * @param skill la compétence (null pour un test de caractéristique)
+   * @param ability la caractéristique
+   * @param difficultyClass le degré de difficulté
+   * @param advantage avantage ou désavantage
+   */
+  public record Check(Skill skill, Ability ability, DifficultyClass difficultyClass, Character.Advantage advantage) {
+    /**
+     * Crée un test de compétence.
+     *
+     * @param skill la compétence
+     * @param difficultyClass le degré de difficulté
+     * @param advantage avantage ou désavantage
+     * @return le test
+     */
+    public static Check of(Skill skill, DifficultyClass difficultyClass, Character.Advantage advantage) {
+      return new Check(skill, skill.getAbility(), difficultyClass, advantage);
+    }
+
+    /**
+     * Crée un test de caractéristique.
+     *
+     * @param ability la caractéristique
+     * @param difficultyClass le degré de difficulté
+     * @param advantage avantage ou désavantage
+     * @return le test
+     */
+    public static Check of(Ability ability, DifficultyClass difficultyClass, Character.Advantage advantage) {
+      return new Check(null, ability, difficultyClass, advantage);
+    }
+  }
+
+  private final long seed;
+  private Ability[] abilitiesOrder = Ability.values();
+  private int proficiencyBonus = CharacterBuilder.FIRST_LEVEL_PROFICIENCY_BONUS;
+  private Set<Skill> skills = EnumSet.noneOf(Skill.class);
+  private final List<Check> checks = new ArrayList<>();
+  private ForkJoinPool pool = ForkJoinPool.commonPool();
+  private LongConsumer progressListener = completed -> { };
+  private double targetHalfWidth;
+
+  /**
+   * Crée une simulation.
+   *
+   * @param seed la graine de la simulation
+   */
+  public Simulation(long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * Fixe l'ordre de préférence des caractéristiques des personnages.
+   *
+   * @param abilitiesOrder l'ordre de préférence
+   *                       (chaque caractéristique doit être mentionnée une et une seule fois)
+   * @return la simulation
+   */
+  public Simulation setAbilitiesOrder(Ability[] abilitiesOrder) {
+    CharacterBuilder.validateAbilitiesOrder(abilitiesOrder);
+    this.abilitiesOrder = abilitiesOrder.clone();
+    return this;
+  }
+
+  /**
+   * Fixe le bonus de maîtrise des personnages.
+   *
+   * @param proficiencyBonus le bonus de maîtrise
+   * @return la simulation
+   */
+  public Simulation setProficiencyBonus(int proficiencyBonus) {
+    this.proficiencyBonus = proficiencyBonus;
+    return this;
+  }
+
+  /**
+   * Indique les compétences maîtrisées par les personnages.
+   *
+   * @param skills les compétences
+   * @return la simulation
+   */
+  public Simulation isProficientIn(Skill... skills) {
+    this.skills = EnumSet.noneOf(Skill.class);
+    this.skills.addAll(Arrays.asList(skills));
+    return this;
+  }
+
+  /**
+   * Ajoute un test réalisé à chaque essai.
+   *
+   * @param check le test
+   * @return la simulation
+   */
+  public Simulation addCheck(Check check) {
+    checks.add(Objects.requireNonNull(check));
+    return this;
+  }
+
+  /**
+   * Fixe le pool exécutant les essais (le pool commun par défaut).
+   *
+   * @param pool le pool
+   * @return la simulation
+   */
+  public Simulation setPool(ForkJoinPool pool) {
+    this.pool = Objects.requireNonNull(pool);
+    return this;
+  }
+
+  /**
+   * Fixe l'observateur notifié du nombre d'essais réalisés après chaque tour.
+   *
+   * @param progressListener l'observateur
+   * @return la simulation
+   */
+  public Simulation setProgressListener(LongConsumer progressListener) {
+    this.progressListener = Objects.requireNonNull(progressListener);
+    return this;
+  }
+
+  /**
+   * Arrête la simulation dès que la demi-largeur de l'intervalle de confiance à 95 %
+   * de chaque taux de réussite est inférieure ou égale à une valeur (0 pour ne jamais arrêter avant la fin).
+   *
+   * @param targetHalfWidth la demi-largeur visée
+   * @return la simulation
+   */
+  public Simulation setTargetHalfWidth(double targetHalfWidth) {
+    this.targetHalfWidth = targetHalfWidth;
+    return this;
+  }
+
+  /**
+   * Exécute la simulation.
+   *
+   * @param trials le nombre maximum d'essais
+   * @return le résultat
+   */
+  public Result run(long trials) {
+    if (trials <= 0) {
+      throw new IllegalArgumentException(MSG_TRIALS_POSITIVE);
+    }
+    if (checks.isEmpty()) {
+      throw new IllegalStateException(MSG_NO_CHECK);
+    }
+    Trial trial = new Trial(abilitiesOrder, proficiencyBonus, skills, checks);
+    RandomSource root = RandomSource.of(seed);
+    Tally total = new Tally(checks.size());
+    long remaining = trials;
+    while (remaining > 0) {
+      long roundTrials = Math.min(remaining, (long) CHUNK_SIZE * CHUNKS_PER_ROUND);
+      List<ChunkTask> tasks = new ArrayList<>();
+      for (long start = 0; start < roundTrials; start += CHUNK_SIZE) {
+        tasks.add(new ChunkTask(trial, root.split(), (int) Math.min(CHUNK_SIZE, roundTrials - start)));
+      }
+      pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks))).forEach(task -> total.add(task.join()));
+      remaining -= roundTrials;
+      progressListener.accept(total.trials);
+      if (remaining > 0 && targetHalfWidth > 0 && total.maxHalfWidth() <= targetHalfWidth) {
+        break;
+      }
+    }
+    return new Result(List.copyOf(checks), total);
+  }
+
+  /** Configuration figée d'un essai. */
+  private static final class Trial {
+    private final int[] orderOrdinals;
+    private final int[] checkAbilities;
+    private final int[] checkBonuses;
+    private final int[] checkDifficulties;
+    private final Character.Advantage[] checkAdvantages;
+
+    Trial(Ability[] abilitiesOrder, int proficiencyBonus, Set<Skill> skills, List<Check> checks) {
+      orderOrdinals = Arrays.stream(abilitiesOrder).mapToInt(Ability::ordinal).toArray();
+      checkAbilities = new int[checks.size()];
+      checkBonuses = new int[checks.size()];
+      checkDifficulties = new int[checks.size()];
+      checkAdvantages = new Character.Advantage[checks.size()];
+      for (int i = 0; i < checks.size(); i++) {
+        Check check = checks.get(i);
+        checkAbilities[i] = check.ability().ordinal();
+        checkBonuses[i] = check.skill() != null && skills.contains(check.skill()) ? proficiencyBonus : 0;
+        checkDifficulties[i] = check.difficultyClass().getDifficultyClass();
+        checkAdvantages[i] = check.advantage();
+      }
+    }
+
+    void run(RandomSource source, int[] modifiers, Tally tally) {
+      AbilityScore[] scores = AbilityScoresSampler.Direct.sample(source);
+      Arrays.sort(scores, Comparator.reverseOrder());
+      for (int i = 0; i < orderOrdinals.length; i++) {
+        modifiers[orderOrdinals[i]] = scores[i].getModifier();
+        tally.scores[orderOrdinals[i]][scores[i].getScore()]++;
+      }
+      for (int i = 0; i < checkAbilities.length; i++) {
+        int total = Character.roll20WithAdvantage(checkAdvantages[i], source)
+            + modifiers[checkAbilities[i]] + checkBonuses[i];
+        tally.totals[i][Math.max(0, Math.min(TOTAL_HISTOGRAM_SIZE - 1, total + TOTAL_OFFSET))]++;
+        if (total >= checkDifficulties[i]) {
+          tally.successes[i]++;
+        }
+      }
+      tally.trials++;
+    }
+  }
+
+  /** Compteurs agrégés d'un ensemble d'essais. */
+  private static final class Tally {
+    private long trials;
+    private final long[] successes;
+    private final long[][] totals;
+    private final long[][] scores = new long[ABILITIES.length][AbilityScore.MAX_SCORE + 1];
+
+    Tally(int numberOfChecks) {
+      successes = new long[numberOfChecks];
+      totals = new long[numberOfChecks][TOTAL_HISTOGRAM_SIZE];
+    }
+
+    void add(Tally other) {
+      trials += other.trials;
+      for (int i = 0; i < successes.length; i++) {
+        successes[i] += other.successes[i];
+        for (int t = 0; t < TOTAL_HISTOGRAM_SIZE; t++) {
+          totals[i][t] += other.totals[i][t];
+        }
+      }
+      for (int a = 0; a < scores.length; a++) {
+        for (int s = 0; s < scores[a].length; s++) {
+          scores[a][s] += other.scores[a][s];
+        }
+      }
+    }
+
+    /** Centre de l'intervalle de Wilson. */
+    double center(int check) {
+      double p = (double) successes[check] / trials;
+      double z2 = Z_95 * Z_95;
+      return (p + z2 / (2 * trials)) / (1 + z2 / trials);
+    }
+
+    /** Demi-largeur de l'intervalle de Wilson, fiable même pour un taux proche de 0 ou de 1. */
+    double halfWidth(int check) {
+      double p = (double) successes[check] / trials;
+      double z2 = Z_95 * Z_95;
+      return Z_95 / (1 + z2 / trials) * Math.sqrt(p * (1 - p) / trials + z2 / (4.0 * trials * trials));
+    }
+
+    double maxHalfWidth() {
+      double max = 0;
+      for (int i = 0; i < successes.length; i++) {
+        max = Math.max(max, halfWidth(i));
+      }
+      return max;
+    }
+  }
+
+  /** Bloc d'essais utilisant sa propre source aléatoire. */
+  private static final class ChunkTask extends RecursiveTask<Tally> {
+    private static final long serialVersionUID = 1L;
+
+    private final transient Trial trial;
+    private final transient RandomSource source;
+    private final int trials;
+
+    ChunkTask(Trial trial, RandomSource source, int trials) {
+      this.trial = trial;
+      this.source = source;
+      this.trials = trials;
+    }
+
+    @Override
+    protected Tally compute() {
+      Tally tally = new Tally(trial.checkAbilities.length);
+      int[] modifiers = new int[ABILITIES.length];
+      for (int i = 0; i < trials; i++) {
+        trial.run(source, modifiers, tally);
+      }
+      return tally;
+    }
+  }
+
+  /**
+   * Résultat d'une simulation.
+   */
+  public static final class Result {
+    private final List<Check> checks;
+    private final Tally tally;
+
+    private Result(List<Check> checks, Tally tally) {
+      this.checks = checks;
+      this.tally = tally;
+    }
+
+    /**
+     * Retourne les tests simulés.
+     *
+     * @return les tests, dans l'ordre d'ajout
+     */
+    public List<Check> getChecks() {
+      return checks;
+    }
+
+    /**
+     * Retourne le nombre d'essais réalisés.
+     *
+     * @return le nombre d'essais
+     */
+    public long getTrials() {
+      return tally.trials;
+    }
+
+    /**
+     * Retourne le nombre de réussites d'un test.
+     *
+     * @param check l'indice du test
+     * @return le nombre de réussites
+     */
+    public long getSuccesses(int check) {
+      return tally.successes[check];
+    }
+
+    /**
+     * Retourne le taux de réussite estimé d'un test.
+     *
+     * @param check l'indice du test
+     * @return le taux de réussite
+     */
+    public double getSuccessRate(int check) {
+      return (double) tally.successes[check] / tally.trials;
+    }
+
+    /**
+     * Retourne la demi-largeur de l'intervalle de confiance à 95 % (intervalle de Wilson) du taux de réussite
+     * d'un test. L'intervalle est centré sur <code>(getLowerBound + getUpperBound) / 2</code>,
+     * pas exactement sur le taux estimé.
+     *
+     * @param check l'indice du test
+     * @return la demi-largeur
+     */
+    public double getHalfWidth(int check) {
+      return tally.halfWidth(check);
+    }
+
+    /**
+     * Retourne la borne inférieure de l'intervalle de confiance à 95 % du taux de réussite d'un test.
+     *
+     * @param check l'indice du test
+     * @return la borne inférieure
+     */
+    public double getLowerBound(int check) {
+      return tally.center(check) - tally.halfWidth(check);
+    }
+
+    /**
+     * Retourne la borne supérieure de l'intervalle de confiance à 95 % du taux de réussite d'un test.
+     *
+     * @param check l'indice du test
+     * @return la borne supérieure
+     */
+    public double getUpperBound(int check) {
+      return tally.center(check) + tally.halfWidth(check);
+    }
+
+    /**
+     * Retourne l'histogramme des totaux (d20 et modificateur) d'un test.
+     *
+     * @param check l'indice du test
+     * @return le nombre d'essais par total, le total t étant à l'indice t + TOTAL_OFFSET
+     */
+    public long[] getTotalHistogram(int check) {
+      return tally.totals[check].clone();
+    }
+
+    /**
+     * Retourne l'histogramme des scores générés pour une caractéristique.
+     *
+     * @param ability la caractéristique
+     * @return le nombre d'essais par score (indices 0 à 20)
+     */
+    public long[] getScoreHistogram(Ability ability) {
+      return tally.scores[ability.ordinal()].clone();
+    }
+  }
+}
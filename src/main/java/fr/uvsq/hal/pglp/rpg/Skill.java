@@ -1,5 +1,8 @@
 package fr.uvsq.hal.pglp.rpg;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 import static fr.uvsq.hal.pglp.rpg.Ability.*;
 
 /**
@@ -55,4 +58,34 @@ public enum Skill {
   public Ability getAbility() {
     return relatedAbility;
   }
+
+  /**
+   * Retourne le masque binaire d'un ensemble de compétences (bit i pour la compétence d'ordinal i).
+   *
+   * @param skills les compétences
+   * @return le masque
+   */
+  public static int toMask(Set<Skill> skills) {
+    int mask = 0;
+    for (Skill skill : skills) {
+      mask |= 1 << skill.ordinal();
+    }
+    return mask;
+  }
+
+  /**
+   * Retourne l'ensemble des compétences correspondant à un masque binaire.
+   *
+   * @param mask le masque
+   * @return les compétences
+   */
+  public static EnumSet<Skill> fromMask(int mask) {
+    EnumSet<Skill> skills = EnumSet.noneOf(Skill.class);
+    for (Skill skill : values()) {
+      if ((mask & 1 << skill.ordinal()) != 0) {
+        skills.add(skill);
+      }
+    }
+    return skills;
+  }
 }
@@ -0,0 +1,50 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import java.util.random.RandomGenerator.SplittableGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+/**
+ * La classe <code>SplittableRandomSource</code> est une source aléatoire reposant
+ * sur un unique générateur divisible (non thread-safe).
+ *
+ * @author hal
+ * @version 2022
+ */
+final class SplittableRandomSource implements RandomSource {
+  private final SplittableGenerator generator;
+
+  SplittableRandomSource(long seed) {
+    this(factory().create(seed));
+  }
+
+  SplittableRandomSource(SplittableGenerator generator) {
+    this.generator = generator;
+  }
+
+  static RandomGeneratorFactory<SplittableGenerator> factory() {
+    return RandomGeneratorFactory.of(ALGORITHM);
+  }
+
+  @Override
+  public int nextInt(int bound) {
+    return generator.nextInt(bound);
+  }
+
+  @Override
+  public void nextInts(int bound, int[] values, int offset, int count) {
+    int end = offset + count;
+    for (int i = offset; i < end; i++) {
+      values[i] = generator.nextInt(bound);
+    }
+  }
+
+  @Override
+  public double nextDouble() {
+    return generator.nextDouble();
+  }
+
+  @Override
+  public RandomSource split() {
+    return new SplittableRandomSource(generator.split());
+  }
+}
@@ -1,10 +1,494 @@
 package fr.uvsq.hal.pglp.rpg;
 
+import java.util.*;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+
 /**
  * La classe <code>Team</code> représente un groupe de personnages.
+ * Une équipe contient des personnages et d'autres équipes (pattern <code>Composite</code>).
+ * Les tests de groupe précalculent le modificateur de chaque membre en un seul parcours de la hiérarchie
+ * puis résolvent les jets, en parallèle pour les grandes équipes.
  *
  * @author hal
  * @version 2022
  */
-public class Team {
+public class Team implements Iterable<Character> {
+  /** Taille à partir de laquelle les tests de groupe sont résolus en parallèle. */
+  public static final int PARALLEL_THRESHOLD = 4096;
+
+  /** Difficulté de référence des valeurs passives. */
+  public static final int PASSIVE_BASE = 10;
+
+  private static final String MSG_NAME_MANDATORY = "The name of the team is mandatory.";
+  private static final String MSG_MEMBER_MANDATORY = "The member is mandatory.";
+  private static final String MSG_CYCLE = "A team cannot contain itself.";
+  private static final String MSG_TEAM_EMPTY = "The team is empty.";
+
+  private final String name;
+  private final List<Character> characters = new ArrayList<>();
+  private final List<Team> teams = new ArrayList<>();
+
+  /**
+   * Crée une équipe vide.
+   *
+   * @param name le nom de l'équipe
+   */
+  public Team(String name) {
+    this.name = Objects.requireNonNull(name, MSG_NAME_MANDATORY);
+  }
+
+  /**
+   * Retourne le nom de l'équipe.
+   *
+   * @return le nom
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Retourne les personnages membres directs de l'équipe.
+   *
+   * @return une vue non modifiable des personnages
+   */
+  public List<Character> getCharacters() {
+    return Collections.unmodifiableList(characters);
+  }
+
+  /**
+   * Retourne les sous-équipes directes de l'équipe.
+   *
+   * @return une vue non modifiable des sous-équipes
+   */
+  public List<Team> getTeams() {
+    return Collections.unmodifiableList(teams);
+  }
+
+  /**
+   * Ajoute un personnage à l'équipe.
+   *
+   * @param character le personnage
+   * @return l'équipe
+   */
+  public Team add(Character character) {
+    characters.add(Objects.requireNonNull(character, MSG_MEMBER_MANDATORY));
+    return this;
+  }
+
+  /**
+   * Ajoute une sous-équipe à l'équipe.
+   *
+   * @param team la sous-équipe
+   * @return l'équipe
+   * @throws IllegalArgumentException si l'équipe se contiendrait elle-même
+   */
+  public Team add(Team team) {
+    Objects.requireNonNull(team, MSG_MEMBER_MANDATORY);
+    if (team == this || team.contains(this)) {
+      throw new IllegalArgumentException(MSG_CYCLE);
+    }
+    teams.add(team);
+    return this;
+  }
+
+  /**
+   * Retire un personnage de l'équipe (sans parcourir les sous-équipes).
+   *
+   * @param character le personnage
+   * @return true si le personnage a été retiré, false sinon
+   */
+  public boolean remove(Character character) {
+    return characters.remove(character);
+  }
+
+  /**
+   * Retire une sous-équipe de l'équipe (sans parcourir les sous-équipes).
+   *
+   * @param team la sous-équipe
+   * @return true si la sous-équipe a été retirée, false sinon
+   */
+  public boolean remove(Team team) {
+    return teams.remove(team);
+  }
+
+  /**
+   * Vérifie si une équipe fait partie de la hiérarchie de cette équipe.
+   *
+   * @param team l'équipe recherchée
+   * @return true si l'équipe est une sous-équipe, directe ou non, false sinon
+   */
+  public boolean contains(Team team) {
+    for (Team subTeam : teams) {
+      if (subTeam == team || subTeam.contains(team)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Retourne le nombre de personnages de la hiérarchie.
+   *
+   * @return le nombre de personnages
+   */
+  public int getSize() {
+    int size = characters.size();
+    for (Team team : teams) {
+      size += team.getSize();
+    }
+    return size;
+  }
+
+  /**
+   * Retourne un itérateur sur l'ensemble des personnages de la hiérarchie
+   * (les personnages de l'équipe puis ceux des sous-équipes, en profondeur d'abord).
+   *
+   * @return l'itérateur
+   */
+  @Override
+  public Iterator<Character> iterator() {
+    return new TeamIterator(this);
+  }
+
+  /**
+   * Effectue un test de groupe de caractéristique : le groupe réussit si au moins la moitié des membres réussit.
+   * Chaque membre lance ses dés avec sa propre source aléatoire.
+   *
+   * @param ability la caractéristique
+   * @param difficultyClass la difficulté du test
+   * @return true si le test de groupe est réussi, false sinon
+   */
+  public boolean groupChecks(Ability ability, DifficultyClass difficultyClass) {
+    return groupChecks(ability, difficultyClass, Character.Advantage.None);
+  }
+
+  /**
+   * Effectue un test de groupe de caractéristique avec avantage ou désavantage.
+   *
+   * @param ability la caractéristique
+   * @param difficultyClass la difficulté du test
+   * @param advantage avantage ou désavantage
+   * @return true si le test de groupe est réussi, false sinon
+   */
+  public boolean groupChecks(Ability ability, DifficultyClass difficultyClass, Character.Advantage advantage) {
+    return isGroupSuccess(countSuccesses(ability, difficultyClass, advantage), getSize());
+  }
+
+  /**
+   * Effectue un test de groupe de caractéristique avec une source aléatoire donnée.
+   *
+   * @param ability la caractéristique
+   * @param difficultyClass la difficulté du test
+   * @param advantage avantage ou désavantage
+   * @param source la source aléatoire, utilisée par tous les membres
+   * @return true si le test de groupe est réussi, false sinon
+   */
+  public boolean groupChecks(Ability ability, DifficultyClass difficultyClass, Character.Advantage advantage,
+                             RandomSource source) {
+    return isGroupSuccess(countSuccesses(ability, difficultyClass, advantage, source), getSize());
+  }
+
+  /**
+   * Effectue un test de groupe de compétence : le groupe réussit si au moins la moitié des membres réussit.
+   * Chaque membre lance ses dés avec sa propre source aléatoire.
+   *
+   * @param skill la compétence
+   * @param difficultyClass la difficulté du test
+   * @return true si le test de groupe est réussi, false sinon
+   */
+  public boolean groupChecks(Skill skill, DifficultyClass difficultyClass) {
+    return groupChecks(skill, difficultyClass, Character.Advantage.None);
+  }
+
+  /**
+   * Effectue un test de groupe de compétence avec avantage ou désavantage.
+   *
+   * @param skill la compétence
+   * @param difficultyClass la difficulté du test
+   * @param advantage avantage ou désavantage
+   * @return true si le test de groupe est réussi, false sinon
+   */
+  public boolean groupChecks(Skill skill, DifficultyClass difficultyClass, Character.Advantage advantage) {
+    return isGroupSuccess(countSuccesses(skill, difficultyClass, advantage), getSize());
+  }
+
+  /**
+   * Effectue un test de groupe de compétence avec une source aléatoire donnée.
+   *
+   * @param skill la compétence
+   * @param difficultyClass la difficulté du test
+   * @param advantage avantage ou désavantage
+   * @param source la source aléatoire, utilisée par tous les membres
+   * @return true si le test de groupe est réussi, false sinon
+   */
+  public boolean groupChecks(Skill skill, DifficultyClass difficultyClass, Character.Advantage advantage,
+                             RandomSource source) {
+    return isGroupSuccess(countSuccesses(skill, difficultyClass, advantage, source), getSize());
+  }
+
+  /**
+   * Compte les membres réussissant un test de caractéristique, chacun avec sa propre source aléatoire.
+   *
+   * @param ability la caractéristique
+   * @param difficultyClass la difficulté du test
+   * @param advantage avantage ou désavantage
+   * @return le nombre de succès
+   */
+  public int countSuccesses(Ability ability, DifficultyClass difficultyClass, Character.Advantage advantage) {
+    return countSuccesses(abilityModifiers(ability), randomSources(), difficultyClass, advantage);
+  }
+
+  /**
+   * Compte les membres réussissant un test de caractéristique.
+   *
+   * @param ability la caractéristique
+   * @param difficultyClass la difficulté du test
+   * @param advantage avantage ou désavantage
+   * @param source la source aléatoire, utilisée par tous les membres
+   * @return le nombre de succès
+   */
+  public int countSuccesses(Ability ability, DifficultyClass difficultyClass, Character.Advantage advantage,
+                            RandomSource source) {
+    return countSuccesses(abilityModifiers(ability), difficultyClass, advantage, source);
+  }
+
+  /**
+   * Compte les membres réussissant un test de compétence, chacun avec sa propre source aléatoire.
+   *
+   * @param skill la compétence
+   * @param difficultyClass la difficulté du test
+   * @param advantage avantage ou désavantage
+   * @return le nombre de succès
+   */
+  public int countSuccesses(Skill skill, DifficultyClass difficultyClass, Character.Advantage advantage) {
+    return countSuccesses(skillModifiers(skill), randomSources(), difficultyClass, advantage);
+  }
+
+  /**
+   * Compte les membres réussissant un test de compétence.
+   *
+   * @param skill la compétence
+   * @param difficultyClass la difficulté du test
+   * @param advantage avantage ou désavantage
+   * @param source la source aléatoire, utilisée par tous les membres
+   * @return le nombre de succès
+   */
+  public int countSuccesses(Skill skill, DifficultyClass difficultyClass, Character.Advantage advantage,
+                            RandomSource source) {
+    return countSuccesses(skillModifiers(skill), difficultyClass, advantage, source);
+  }
+
+  private int countSuccesses(int[] modifiers, RandomSource[] sources, DifficultyClass difficultyClass,
+                             Character.Advantage advantage) {
+    if (sources == null) {
+      return countSuccesses(modifiers, difficultyClass, advantage, Dice.getRandomSource());
+    }
+    // les sources propres aux membres ne sont pas thread-safe : résolution séquentielle
+    Objects.requireNonNull(difficultyClass);
+    Objects.requireNonNull(advantage);
+    long start = RollMetrics.start();
+    int successes = 0;
+    for (int i = 0; i < modifiers.length; i++) {
+      int rolled = Character.roll20WithAdvantage(advantage, sources[i] != null ? sources[i] : Dice.getRandomSource());
+      if (Character.check(rolled, modifiers[i], difficultyClass, advantage)) {
+        successes++;
+      }
+    }
+    RollMetrics.checks(start, modifiers.length);
+    return successes;
+  }
+
+  private static int countSuccesses(int[] modifiers, DifficultyClass difficultyClass,
+                                    Character.Advantage advantage, RandomSource source) {
+    Objects.requireNonNull(difficultyClass);
+    Objects.requireNonNull(advantage);
+    if (modifiers.length < PARALLEL_THRESHOLD) {
+      return countSuccesses(modifiers, 0, modifiers.length, difficultyClass, advantage, source);
+    }
+    int partitions = (modifiers.length + PARALLEL_THRESHOLD - 1) / PARALLEL_THRESHOLD;
+    RandomSource[] sources = new RandomSource[partitions];
+    for (int partition = 0; partition < partitions; partition++) {
+      sources[partition] = source.split();
+    }
+    return IntStream.range(0, partitions).parallel()
+      .map(partition -> countSuccesses(modifiers, partition * PARALLEL_THRESHOLD,
+        Math.min(modifiers.length, (partition + 1) * PARALLEL_THRESHOLD), difficultyClass, advantage,
+        sources[partition]))
+      .sum();
+  }
+
+  private static int countSuccesses(int[] modifiers, int from, int to, DifficultyClass difficultyClass,
+                                    Character.Advantage advantage, RandomSource source) {
+    long start = RollMetrics.start();
+    int successes = 0;
+    for (int i = from; i < to; i++) {
+      int rolled = Character.roll20WithAdvantage(advantage, source);
+      if (Character.check(rolled, modifiers[i], difficultyClass, advantage)) {
+        successes++;
+      }
+    }
+    RollMetrics.checks(start, to - from);
+    return successes;
+  }
+
+  /**
+   * Effectue un test de compétence avec l'aide de l'équipe :
+   * le meilleur membre effectue le test avec sa propre source aléatoire,
+   * avec avantage si un autre membre peut l'aider.
+   *
+   * @param skill la compétence
+   * @param difficultyClass la difficulté du test
+   * @return true si le test est réussi, false sinon
+   */
+  public boolean helpChecks(Skill skill, DifficultyClass difficultyClass) {
+    RandomSource source = getBest(skill).getRandomSource();
+    return helpChecks(skill, difficultyClass, source != null ? source : Dice.getRandomSource());
+  }
+
+  /**
+   * Effectue un test de compétence avec l'aide de l'équipe et une source aléatoire donnée.
+   *
+   * @param skill la compétence
+   * @param difficultyClass la difficulté du test
+   * @param source la source aléatoire
+   * @return true si le test est réussi, false sinon
+   */
+  public boolean helpChecks(Skill skill, DifficultyClass difficultyClass, RandomSource source) {
+    Objects.requireNonNull(difficultyClass);
+    int[] modifiers = skillModifiers(skill);
+    Character.Advantage advantage = modifiers.length > 1 ? Character.Advantage.Advantage : Character.Advantage.None;
+    int modifier = max(modifiers);
+    long start = RollMetrics.start();
+    int rolled = Character.roll20WithAdvantage(advantage, source);
+    boolean success = Character.check(rolled, modifier, difficultyClass, advantage);
+    RollMetrics.checks(start, 1);
+    return success;
+  }
+
+  /**
+   * Retourne le membre ayant le meilleur bonus pour une compétence.
+   *
+   * @param skill la compétence
+   * @return le meilleur membre
+   * @throws IllegalStateException si l'équipe est vide
+   */
+  public Character getBest(Skill skill) {
+    Character best = null;
+    int bestBonus = Integer.MIN_VALUE;
+    for (Character character : this) {
+      int bonus = character.getProficiencyBonusIn(skill);
+      if (bonus > bestBonus) {
+        best = character;
+        bestBonus = bonus;
+      }
+    }
+    if (best == null) {
+      throw new IllegalStateException(MSG_TEAM_EMPTY);
+    }
+    return best;
+  }
+
+  /**
+   * Retourne la meilleure valeur passive de l'équipe pour une compétence (par exemple la Perception passive).
+   *
+   * @param skill la compétence
+   * @return 10 plus le meilleur bonus des membres
+   * @throws IllegalStateException si l'équipe est vide
+   */
+  public int getPassiveMaximum(Skill skill) {
+    return PASSIVE_BASE + max(skillModifiers(skill));
+  }
+
+  private int[] skillModifiers(Skill skill) {
+    Objects.requireNonNull(skill);
+    return modifiers(character -> character.getProficiencyBonusIn(skill));
+  }
+
+  private int[] abilityModifiers(Ability ability) {
+    Objects.requireNonNull(ability);
+    return modifiers(character -> character.getModifier(ability));
+  }
+
+  private int[] modifiers(ToIntFunction<Character> modifier) {
+    int[] modifiers = new int[getSize()];
+    int i = 0;
+    for (Character character : this) {
+      modifiers[i++] = modifier.applyAsInt(character);
+    }
+    return modifiers;
+  }
+
+  /**
+   * Retourne les sources propres des membres, dans l'ordre de parcours.
+   *
+   * @return les sources (null pour un membre sans source propre), ou null si aucun membre n'en a
+   */
+  private RandomSource[] randomSources() {
+    RandomSource[] sources = null;
+    int i = 0;
+    for (Character character : this) {
+      RandomSource source = character.getRandomSource();
+      if (source != null) {
+        if (sources == null) {
+          sources = new RandomSource[getSize()];
+        }
+        sources[i] = source;
+      }
+      i++;
+    }
+    return sources;
+  }
+
+  private static int max(int[] modifiers) {
+    if (modifiers.length == 0) {
+      throw new IllegalStateException(MSG_TEAM_EMPTY);
+    }
+    int max = modifiers[0];
+    for (int modifier : modifiers) {
+      max = Math.max(max, modifier);
+    }
+    return max;
+  }
+
+  private static boolean isGroupSuccess(int successes, int size) {
+    return size > 0 && 2 * successes >= size;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s (%d)", name, getSize());
+  }
+
+  /**
+   * Itérateur en profondeur d'abord sur les personnages d'une hiérarchie d'équipes.
+   */
+  private static final class TeamIterator implements Iterator<Character> {
+    private final Deque<Team> pending = new ArrayDeque<>();
+    private Iterator<Character> current = Collections.emptyIterator();
+
+    TeamIterator(Team root) {
+      pending.push(root);
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (!current.hasNext() && !pending.isEmpty()) {
+        Team team = pending.pop();
+        for (int i = team.teams.size() - 1; i >= 0; i--) {
+          pending.push(team.teams.get(i));
+        }
+        current = team.characters.iterator();
+      }
+      return current.hasNext();
+    }
+
+    @Override
+    public Character next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return current.next();
+    }
+  }
 }
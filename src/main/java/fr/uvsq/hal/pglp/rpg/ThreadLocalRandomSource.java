@@ -0,0 +1,69 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.random.RandomGenerator.SplittableGenerator;
+
+/**
+ * La classe <code>ThreadLocalRandomSource</code> est une source aléatoire
+ * disposant d'un générateur par thread.
+ * Le premier thread à l'utiliser reçoit le générateur initialisé avec la graine, si bien qu'en mono-thread
+ * les tirages sont ceux de <code>RandomSource.of(seed)</code>. Les threads suivants reçoivent un générateur
+ * obtenu en divisant un générateur racine distinct : les threads ne partagent aucun état lors des tirages.
+ *
+ * @author hal
+ * @version 2022
+ */
+final class ThreadLocalRandomSource implements RandomSource {
+  /** Perturbation de la graine du générateur racine, pour le distinguer du générateur du premier thread. */
+  private static final long ROOT_SEED_MIX = 0x9E3779B97F4A7C15L;
+
+  private final SplittableGenerator root;
+
+  /** Générateur réservé au premier thread (null une fois attribué). */
+  private final AtomicReference<SplittableGenerator> first;
+
+  private final ThreadLocal<SplittableGenerator> generators = ThreadLocal.withInitial(this::nextGenerator);
+
+  ThreadLocalRandomSource(long seed) {
+    this(SplittableRandomSource.factory().create(seed ^ ROOT_SEED_MIX),
+        SplittableRandomSource.factory().create(seed));
+  }
+
+  private ThreadLocalRandomSource(SplittableGenerator root, SplittableGenerator first) {
+    this.root = root;
+    this.first = new AtomicReference<>(first);
+  }
+
+  private SplittableGenerator nextGenerator() {
+    SplittableGenerator generator = first.getAndSet(null);
+    return generator != null ? generator : splitRoot();
+  }
+
+  private synchronized SplittableGenerator splitRoot() {
+    return root.split();
+  }
+
+  @Override
+  public int nextInt(int bound) {
+    return generators.get().nextInt(bound);
+  }
+
+  @Override
+  public void nextInts(int bound, int[] values, int offset, int count) {
+    SplittableGenerator generator = generators.get();
+    int end = offset + count;
+    for (int i = offset; i < end; i++) {
+      values[i] = generator.nextInt(bound);
+    }
+  }
+
+  @Override
+  public double nextDouble() {
+    return generators.get().nextDouble();
+  }
+
+  @Override
+  public RandomSource split() {
+    return new ThreadLocalRandomSource(splitRoot(), null);
+  }
+}
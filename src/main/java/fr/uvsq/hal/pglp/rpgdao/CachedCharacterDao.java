@@ -0,0 +1,258 @@
+package fr.uvsq.hal.pglp.rpgdao;
+
+import fr.uvsq.hal.pglp.rpg.Character;
+import fr.uvsq.hal.pglp.rpg.CompactCharacter;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * La classe <code>CachedCharacterDao</code> est un cache de personnages placé devant un autre DAO.
+ * Les lectures passent par le cache (read-through) et les créations sont propagées au DAO puis au cache
+ * (write-through) ; les mises à jour et les suppressions sont propagées au DAO puis invalident l'entrée.
+ * Une création met en cache une copie sans source aléatoire, comme celles que relit le DAO,
+ * pour que les lecteurs ne partagent pas la source (non thread-safe) de l'appelant.
+ * Un chargement n'est mis en cache que si l'entrée n'a pas été invalidée pendant la lecture du DAO.
+ * Le cache est borné : le personnage le moins récemment utilisé est évincé (LRU)
+ * et une entrée expire après une durée de vie donnée.
+ *
+ * @author hal
+ * @version 2022
+ */
+public class CachedCharacterDao implements Dao<Character> {
+  private static final String MSG_CAPACITY_POSITIVE = "The capacity of the cache have to be positive.";
+  private static final String MSG_TTL_POSITIVE = "The time to live have to be positive.";
+
+  /** Durée de vie des entrées d'un cache sans expiration. */
+  private static final long NO_TIME_TO_LIVE = 0;
+
+  private final Dao<Character> dao;
+  private final int capacity;
+  private final long timeToLive;
+  private final LongSupplier clock;
+  private final Map<String, Entry> entries;
+  /** Jeton du dernier chargement en cours pour chaque nom, retiré par les invalidations. */
+  private final Map<String, Object> loads = new HashMap<>();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /** Personnage en cache et date d'expiration. */
+  private record Entry(Character character, long expiresAt) { }
+
+  /**
+   * Crée un cache sans expiration.
+   *
+   * @param dao le DAO sous-jacent
+   * @param capacity le nombre maximum de personnages en cache
+   */
+  public CachedCharacterDao(Dao<Character> dao, int capacity) {
+    this(dao, capacity, null, System::nanoTime);
+  }
+
+  /**
+   * Crée un cache dont les entrées expirent.
+   *
+   * @param dao le DAO sous-jacent
+   * @param capacity le nombre maximum de personnages en cache
+   * @param timeToLive la durée de vie d'une entrée
+   */
+  public CachedCharacterDao(Dao<Character> dao, int capacity, Duration timeToLive) {
+    this(dao, capacity, Objects.requireNonNull(timeToLive, MSG_TTL_POSITIVE), System::nanoTime);
+  }
+
+  /**
+   * Crée un cache avec une horloge donnée (en nanosecondes).
+   *
+   * @param dao le DAO sous-jacent
+   * @param capacity le nombre maximum de personnages en cache
+   * @param timeToLive la durée de vie d'une entrée (sans expiration si null)
+   * @param clock l'horloge
+   */
+  CachedCharacterDao(Dao<Character> dao, int capacity, Duration timeToLive, LongSupplier clock) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException(MSG_CAPACITY_POSITIVE);
+    }
+    if (timeToLive != null && (timeToLive.isNegative() || timeToLive.isZero())) {
+      throw new IllegalArgumentException(MSG_TTL_POSITIVE);
+    }
+    this.dao = Objects.requireNonNull(dao);
+    this.capacity = capacity;
+    this.timeToLive = timeToLive == null ? NO_TIME_TO_LIVE : timeToLive.toNanos();
+    this.clock = clock;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        if (super.size() > capacity) {
+          evictions.increment();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  private synchronized void put(Character character) {
+    // sans expiration la date n'est jamais lue ; sinon la somme peut déborder (comparée par différence)
+    long expiresAt = timeToLive == NO_TIME_TO_LIVE ? 0 : clock.getAsLong() + timeToLive;
+    entries.put(character.getName(), new Entry(character, expiresAt));
+  }
+
+  /**
+   * Termine un chargement : le personnage chargé n'est mis en cache que si l'entrée
+   * n'a pas été invalidée (ni rechargée) depuis le début du chargement.
+   */
+  private synchronized void endLoad(String name, Object load, Character loaded) {
+    if (loads.remove(name, load) && loaded != null) {
+      put(loaded);
+    }
+  }
+
+  private synchronized Character get(String name, Object load) {
+    Entry entry = entries.get(name);
+    if (entry == null) {
+      loads.put(name, load);
+      return null;
+    }
+    if (timeToLive != NO_TIME_TO_LIVE && clock.getAsLong() - entry.expiresAt() >= 0) {
+      entries.remove(name);
+      evictions.increment();
+      loads.put(name, load);
+      return null;
+    }
+    return entry.character();
+  }
+
+  private synchronized void remove(String name) {
+    entries.remove(name);
+    loads.remove(name);
+  }
+
+  /**
+   * Met en cache une copie sans source aléatoire d'un personnage créé,
+   * ou invalide l'entrée si le personnage n'a pas de représentation compacte.
+   */
+  private void putCopy(Character character) {
+    Character copy;
+    try {
+      copy = CompactCharacter.of(character).toCharacter();
+    } catch (IllegalArgumentException e) {
+      remove(character.getName());
+      return;
+    }
+    put(copy);
+  }
+
+  @Override
+  public void create(Character character) {
+    dao.create(character);
+    putCopy(character);
+  }
+
+  @Override
+  public void createAll(Collection<? extends Character> characters) {
+    dao.createAll(characters);
+    characters.forEach(this::putCopy);
+  }
+
+  @Override
+  public Optional<Character> read(String name) {
+    Object load = new Object();
+    Character character = get(name, load);
+    if (character != null) {
+      hits.increment();
+      return Optional.of(character);
+    }
+    misses.increment();
+    Character loaded = null;
+    try {
+      loaded = dao.read(name).orElse(null);
+    } finally {
+      endLoad(name, load, loaded);
+    }
+    return Optional.ofNullable(loaded);
+  }
+
+  @Override
+  public boolean update(Character character) {
+    boolean updated = dao.update(character);
+    remove(character.getName());
+    return updated;
+  }
+
+  @Override
+  public boolean delete(String name) {
+    boolean deleted = dao.delete(name);
+    remove(name);
+    return deleted;
+  }
+
+  @Override
+  public List<Character> findAll() {
+    return dao.findAll();
+  }
+
+  @Override
+  public Stream<Character> stream() {
+    return dao.stream();
+  }
+
+  /**
+   * Vide le cache.
+   */
+  public synchronized void invalidateAll() {
+    entries.clear();
+    loads.clear();
+  }
+
+  /**
+   * Retourne le nombre de personnages en cache.
+   *
+   * @return le nombre de personnages
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Retourne le nombre de lectures servies par le cache.
+   *
+   * @return le nombre de succès
+   */
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /**
+   * Retourne le nombre de lectures transmises au DAO sous-jacent.
+   *
+   * @return le nombre d'échecs
+   */
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /**
+   * Retourne le nombre d'entrées évincées (capacité dépassée ou durée de vie écoulée).
+   *
+   * @return le nombre d'évictions
+   */
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  /**
+   * Retourne la proportion de lectures servies par le cache.
+   *
+   * @return le taux de succès (NaN si aucune lecture)
+   */
+  public double getHitRate() {
+    long hitCount = getHits();
+    long total = hitCount + getMisses();
+    return total == 0 ? Double.NaN : (double) hitCount / total;
+  }
+}
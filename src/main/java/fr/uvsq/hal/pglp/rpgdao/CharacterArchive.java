@@ -0,0 +1,286 @@
+package fr.uvsq.hal.pglp.rpgdao;
+
+import fr.uvsq.hal.pglp.rpg.Character;
+import fr.uvsq.hal.pglp.rpg.CompactCharacter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * La classe <code>CharacterArchive</code> est une archive de personnages projetée en mémoire
+ * (<code>FileChannel.map</code>).
+ * L'archive est un répertoire contenant deux fichiers :
+ * <ul>
+ *   <li><code>characters.rec</code>, un en-tête suivi d'enregistrements de taille fixe (scores regroupés,
+ *   masque des compétences, position du nom, bonus de maîtrise) ;</li>
+ *   <li><code>names.heap</code>, les noms en UTF-8 précédés de leur longueur.</li>
+ * </ul>
+ * Les personnages sont ajoutés à la fin et lus par indice directement dans les fichiers projetés,
+ * sans charger l'archive dans le tas.
+ * Chaque projection est limitée à 2 Go, soit environ 134 millions d'enregistrements.
+ *
+ * @author hal
+ * @version 2022
+ */
+public class CharacterArchive implements Closeable {
+  /** Nom du fichier des enregistrements. */
+  public static final String RECORDS_FILE = "characters.rec";
+
+  /** Nom du fichier des noms. */
+  public static final String NAMES_FILE = "names.heap";
+
+  /** Taille d'un enregistrement. */
+  public static final int RECORD_SIZE = 16;
+
+  private static final int MAGIC = 0x52504743;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 32;
+  private static final int COUNT_OFFSET = 8;
+  private static final int HEAP_SIZE_OFFSET = 16;
+
+  private static final int ABILITIES_OFFSET = 0;
+  private static final int SKILLS_OFFSET = 4;
+  private static final int NAME_OFFSET = 8;
+  private static final int PROFICIENCY_OFFSET = 12;
+
+  private static final long INITIAL_RECORDS_CAPACITY = HEADER_SIZE + 1024L * RECORD_SIZE;
+  private static final long INITIAL_HEAP_CAPACITY = 16 * 1024L;
+  private static final long MAX_MAPPING_SIZE = Integer.MAX_VALUE;
+  private static final OpenOption[] OPEN_OPTIONS = {
+    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE
+  };
+
+  private static final String MSG_INVALID_ARCHIVE = "The file is not a character archive: %s.";
+  private static final String MSG_INDEX_INVALID = "The index of the character is invalid.";
+  private static final String MSG_ARCHIVE_FULL = "The archive is full.";
+
+  private final FileChannel recordsChannel;
+  private final FileChannel namesChannel;
+  private volatile MappedByteBuffer records;
+  private volatile MappedByteBuffer names;
+  private volatile int count;
+  private int heapSize;
+
+  private CharacterArchive(FileChannel recordsChannel, FileChannel namesChannel) throws IOException {
+    this.recordsChannel = recordsChannel;
+    this.namesChannel = namesChannel;
+    boolean created = recordsChannel.size() == 0;
+    if (!created) {
+      // l'en-tête est validé avant toute projection, qui agrandirait le fichier
+      ByteBuffer header = readHeader(recordsChannel, namesChannel);
+      count = (int) header.getLong(COUNT_OFFSET);
+      heapSize = (int) header.getLong(HEAP_SIZE_OFFSET);
+    }
+    records = map(recordsChannel, Math.max(recordsChannel.size(), INITIAL_RECORDS_CAPACITY));
+    names = map(namesChannel, Math.max(namesChannel.size(), INITIAL_HEAP_CAPACITY));
+    if (created) {
+      records.putInt(0, MAGIC);
+      records.putInt(4, VERSION);
+      records.putLong(COUNT_OFFSET, 0);
+      records.putLong(HEAP_SIZE_OFFSET, 0);
+    }
+  }
+
+  /**
+   * Lit et valide l'en-tête d'une archive existante : signature, version,
+   * nombre d'enregistrements et taille des noms compatibles avec la taille des fichiers.
+   *
+   * @return l'en-tête validé
+   */
+  private static ByteBuffer readHeader(FileChannel recordsChannel, FileChannel namesChannel) throws IOException {
+    long recordsSize = recordsChannel.size();
+    if (recordsSize < HEADER_SIZE || recordsSize > MAX_MAPPING_SIZE) {
+      throw new IllegalArgumentException(String.format(MSG_INVALID_ARCHIVE, recordsChannel));
+    }
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    while (header.hasRemaining()) {
+      if (recordsChannel.read(header, header.position()) < 0) {
+        throw new IllegalArgumentException(String.format(MSG_INVALID_ARCHIVE, recordsChannel));
+      }
+    }
+    long recordCount = header.getLong(COUNT_OFFSET);
+    long heapLength = header.getLong(HEAP_SIZE_OFFSET);
+    if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION
+        || recordCount < 0 || recordCount > (recordsSize - HEADER_SIZE) / RECORD_SIZE
+        || heapLength < 0 || heapLength > namesChannel.size()) {
+      throw new IllegalArgumentException(String.format(MSG_INVALID_ARCHIVE, recordsChannel));
+    }
+    return header;
+  }
+
+  /**
+   * Ouvre une archive, en la créant si nécessaire.
+   *
+   * @param directory le répertoire de l'archive
+   * @return l'archive
+   * @throws IOException en cas d'erreur d'entrée/sortie
+   * @throws IllegalArgumentException si le répertoire contient un fichier qui n'est pas une archive
+   */
+  public static CharacterArchive open(Path directory) throws IOException {
+    Files.createDirectories(directory);
+    FileChannel recordsChannel = FileChannel.open(directory.resolve(RECORDS_FILE), OPEN_OPTIONS);
+    try {
+      FileChannel namesChannel = FileChannel.open(directory.resolve(NAMES_FILE), OPEN_OPTIONS);
+      try {
+        return new CharacterArchive(recordsChannel, namesChannel);
+      } catch (IOException | RuntimeException e) {
+        namesChannel.close();
+        throw e;
+      }
+    } catch (IOException | RuntimeException e) {
+      recordsChannel.close();
+      throw e;
+    }
+  }
+
+  private static MappedByteBuffer map(FileChannel channel, long size) throws IOException {
+    if (size > MAX_MAPPING_SIZE) {
+      throw new IllegalStateException(MSG_ARCHIVE_FULL);
+    }
+    return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+  }
+
+  private static long grow(long capacity, long required) {
+    long newCapacity = capacity;
+    while (newCapacity < required) {
+      newCapacity = Math.min(2 * newCapacity, MAX_MAPPING_SIZE);
+      if (newCapacity == MAX_MAPPING_SIZE && newCapacity < required) {
+        throw new IllegalStateException(MSG_ARCHIVE_FULL);
+      }
+    }
+    return newCapacity;
+  }
+
+  /**
+   * Ajoute un personnage à la fin de l'archive.
+   *
+   * @param character le personnage
+   * @return l'indice du personnage
+   */
+  public int append(Character character) {
+    return append(CompactCharacter.of(character));
+  }
+
+  /**
+   * Ajoute un personnage sous forme compacte à la fin de l'archive.
+   *
+   * @param character le personnage
+   * @return l'indice du personnage
+   */
+  public synchronized int append(CompactCharacter character) {
+    byte[] name = character.getName().getBytes(StandardCharsets.UTF_8);
+    try {
+      long requiredHeap = (long) heapSize + Short.BYTES + name.length;
+      if (requiredHeap > names.capacity()) {
+        names = map(namesChannel, grow(names.capacity(), requiredHeap));
+      }
+      long requiredRecords = HEADER_SIZE + (long) (count + 1) * RECORD_SIZE;
+      if (requiredRecords > records.capacity()) {
+        records = map(recordsChannel, grow(records.capacity(), requiredRecords));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    int nameOffset = heapSize;
+    names.putShort(nameOffset, (short) name.length);
+    names.put(nameOffset + Short.BYTES, name);
+    heapSize += Short.BYTES + name.length;
+
+    int index = count;
+    int record = HEADER_SIZE + index * RECORD_SIZE;
+    records.putInt(record + ABILITIES_OFFSET, character.getPackedAbilities());
+    records.putInt(record + SKILLS_OFFSET, character.getSkillMask());
+    records.putInt(record + NAME_OFFSET, nameOffset);
+    records.put(record + PROFICIENCY_OFFSET, (byte) character.getProficiencyBonus());
+    records.putLong(HEAP_SIZE_OFFSET, heapSize);
+    records.putLong(COUNT_OFFSET, index + 1);
+    count = index + 1;
+    return index;
+  }
+
+  /**
+   * Retourne le nombre de personnages de l'archive.
+   *
+   * @return le nombre de personnages
+   */
+  public int size() {
+    return count;
+  }
+
+  private int recordOffset(int index) {
+    if (index < 0 || index >= count) {
+      throw new IndexOutOfBoundsException(MSG_INDEX_INVALID);
+    }
+    return HEADER_SIZE + index * RECORD_SIZE;
+  }
+
+  /**
+   * Retourne le nom d'un personnage.
+   *
+   * @param index l'indice du personnage
+   * @return le nom
+   */
+  public String getName(int index) {
+    int record = recordOffset(index);
+    MappedByteBuffer heap = names;
+    int nameOffset = records.getInt(record + NAME_OFFSET);
+    byte[] name = new byte[Short.toUnsignedInt(heap.getShort(nameOffset))];
+    heap.get(nameOffset + Short.BYTES, name);
+    return new String(name, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Retourne un personnage sous forme compacte.
+   *
+   * @param index l'indice du personnage
+   * @return le personnage
+   */
+  public CompactCharacter getCompact(int index) {
+    int record = recordOffset(index);
+    MappedByteBuffer buffer = records;
+    return CompactCharacter.of(getName(index),
+      buffer.getInt(record + ABILITIES_OFFSET),
+      buffer.getInt(record + SKILLS_OFFSET),
+      buffer.get(record + PROFICIENCY_OFFSET));
+  }
+
+  /**
+   * Retourne un personnage.
+   *
+   * @param index l'indice du personnage
+   * @return le personnage
+   */
+  public Character get(int index) {
+    return getCompact(index).toCharacter();
+  }
+
+  /**
+   * Écrit sur disque les modifications de l'archive.
+   */
+  public synchronized void force() {
+    names.force();
+    records.force();
+  }
+
+  /**
+   * Écrit les modifications et ferme l'archive.
+   *
+   * @throws IOException en cas d'erreur d'entrée/sortie
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    force();
+    try (recordsChannel; namesChannel) {
+      // fermeture des deux fichiers
+    }
+  }
+}
@@ -0,0 +1,253 @@
+package fr.uvsq.hal.pglp.rpgdao;
+
+import fr.uvsq.hal.pglp.rpg.Character;
+import fr.uvsq.hal.pglp.rpg.CompactCharacter;
+import fr.uvsq.hal.pglp.rpg.Team;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * La classe <code>CharacterCodec</code> encode les personnages et les équipes dans un format binaire compact.
+ * Un message commence par un octet de version.
+ * Un personnage occupe 8 octets suivis de son nom :
+ * les scores regroupés (4 octets, 5 bits par caractéristique), le masque des compétences (3 octets)
+ * et le bonus de maîtrise (1 octet), puis la longueur du nom en UTF-8 (2 octets) et le nom.
+ * Une équipe est encodée par son nom, ses personnages puis, récursivement, ses sous-équipes.
+ * Le décodage rejette les contenus tronqués, les nombres d'éléments incohérents
+ * et les hiérarchies plus profondes que <code>MAX_DEPTH</code>.
+ *
+ * @author hal
+ * @version 2022
+ */
+public final class CharacterCodec {
+  /** Version du format. */
+  public static final byte VERSION = 1;
+
+  /** Taille d'un personnage sans son nom. */
+  public static final int FIXED_SIZE = 8;
+
+  /** Profondeur maximum d'une hiérarchie d'équipes décodée. */
+  public static final int MAX_DEPTH = 64;
+
+  private static final int MAX_NAME_LENGTH = 0xFFFF;
+  private static final int MIN_CHARACTER_SIZE = FIXED_SIZE + Short.BYTES;
+  private static final int MIN_TEAM_SIZE = Short.BYTES + 2 * Integer.BYTES;
+  private static final String MSG_VERSION_UNSUPPORTED = "Unsupported format version: %d.";
+  private static final String MSG_NAME_TOO_LONG = "The encoded name is too long.";
+  private static final String MSG_TRUNCATED = "The encoded content is truncated.";
+  private static final String MSG_COUNT_INVALID = "Invalid element count: %d.";
+  private static final String MSG_TOO_DEEP = "The team hierarchy is deeper than " + MAX_DEPTH + ".";
+
+  private CharacterCodec() {
+  }
+
+  /**
+   * Retourne la taille de l'encodage d'un personnage, octet de version compris.
+   *
+   * @param character le personnage
+   * @return la taille en octets
+   */
+  public static int encodedSize(Character character) {
+    return 1 + FIXED_SIZE + nameSize(character.getName());
+  }
+
+  /**
+   * Retourne la taille de l'encodage d'une équipe et de sa hiérarchie, octet de version compris.
+   *
+   * @param team l'équipe
+   * @return la taille en octets
+   */
+  public static int encodedSize(Team team) {
+    return 1 + teamSize(team);
+  }
+
+  /**
+   * Encode un personnage dans un tableau d'octets.
+   *
+   * @param character le personnage
+   * @return l'encodage
+   */
+  public static byte[] encode(Character character) {
+    ByteBuffer buffer = ByteBuffer.allocate(encodedSize(character));
+    encode(character, buffer);
+    return buffer.array();
+  }
+
+  /**
+   * Encode un personnage à la position courante d'un buffer.
+   *
+   * @param character le personnage
+   * @param buffer le buffer
+   */
+  public static void encode(Character character, ByteBuffer buffer) {
+    buffer.put(VERSION);
+    write(CompactCharacter.of(character), buffer);
+  }
+
+  /**
+   * Encode une équipe et sa hiérarchie dans un tableau d'octets.
+   *
+   * @param team l'équipe
+   * @return l'encodage
+   */
+  public static byte[] encode(Team team) {
+    ByteBuffer buffer = ByteBuffer.allocate(encodedSize(team));
+    encode(team, buffer);
+    return buffer.array();
+  }
+
+  /**
+   * Encode une équipe et sa hiérarchie à la position courante d'un buffer.
+   *
+   * @param team l'équipe
+   * @param buffer le buffer
+   */
+  public static void encode(Team team, ByteBuffer buffer) {
+    buffer.put(VERSION);
+    write(team, buffer);
+  }
+
+  /**
+   * Décode un personnage à la position courante d'un buffer.
+   *
+   * @param buffer le buffer
+   * @return le personnage
+   * @throws IllegalArgumentException si la version ou le contenu est invalide
+   */
+  public static Character decode(ByteBuffer buffer) {
+    try {
+      checkVersion(buffer);
+      return read(buffer).toCharacter();
+    } catch (BufferUnderflowException e) {
+      throw new IllegalArgumentException(MSG_TRUNCATED, e);
+    }
+  }
+
+  /**
+   * Décode une équipe et sa hiérarchie à la position courante d'un buffer.
+   *
+   * @param buffer le buffer
+   * @return l'équipe
+   * @throws IllegalArgumentException si la version ou le contenu est invalide
+   */
+  public static Team decodeTeam(ByteBuffer buffer) {
+    try {
+      checkVersion(buffer);
+      return readTeam(buffer, 0);
+    } catch (BufferUnderflowException e) {
+      throw new IllegalArgumentException(MSG_TRUNCATED, e);
+    }
+  }
+
+  private static int teamSize(Team team) {
+    int size = nameSize(team.getName()) + 2 * Integer.BYTES;
+    for (Character character : team.getCharacters()) {
+      size += FIXED_SIZE + nameSize(character.getName());
+    }
+    for (Team subTeam : team.getTeams()) {
+      size += teamSize(subTeam);
+    }
+    return size;
+  }
+
+  private static void checkVersion(ByteBuffer buffer) {
+    byte version = buffer.get();
+    if (version != VERSION) {
+      throw new IllegalArgumentException(String.format(MSG_VERSION_UNSUPPORTED, version));
+    }
+  }
+
+  private static void write(CompactCharacter character, ByteBuffer buffer) {
+    int skills = character.getSkillMask();
+    buffer.putInt(character.getPackedAbilities());
+    buffer.putShort((short) skills);
+    buffer.put((byte) (skills >>> Short.SIZE));
+    buffer.put((byte) character.getProficiencyBonus());
+    writeName(character.getName(), buffer);
+  }
+
+  private static void write(Team team, ByteBuffer buffer) {
+    writeName(team.getName(), buffer);
+    buffer.putInt(team.getCharacters().size());
+    for (Character character : team.getCharacters()) {
+      write(CompactCharacter.of(character), buffer);
+    }
+    buffer.putInt(team.getTeams().size());
+    for (Team subTeam : team.getTeams()) {
+      write(subTeam, buffer);
+    }
+  }
+
+  private static CompactCharacter read(ByteBuffer buffer) {
+    int abilities = buffer.getInt();
+    int skills = Short.toUnsignedInt(buffer.getShort()) | Byte.toUnsignedInt(buffer.get()) << Short.SIZE;
+    byte proficiencyBonus = buffer.get();
+    return CompactCharacter.of(readName(buffer), abilities, skills, proficiencyBonus);
+  }
+
+  private static Team readTeam(ByteBuffer buffer, int depth) {
+    if (depth >= MAX_DEPTH) {
+      throw new IllegalArgumentException(MSG_TOO_DEEP);
+    }
+    Team team = new Team(readName(buffer));
+    for (int i = readCount(buffer, MIN_CHARACTER_SIZE); i > 0; i--) {
+      team.add(read(buffer).toCharacter());
+    }
+    for (int i = readCount(buffer, MIN_TEAM_SIZE); i > 0; i--) {
+      team.add(readTeam(buffer, depth + 1));
+    }
+    return team;
+  }
+
+  /**
+   * Lit un nombre d'éléments et vérifie que le reste du buffer peut les contenir.
+   */
+  private static int readCount(ByteBuffer buffer, int minElementSize) {
+    int count = buffer.getInt();
+    if (count < 0 || count > buffer.remaining() / minElementSize) {
+      throw new IllegalArgumentException(String.format(MSG_COUNT_INVALID, count));
+    }
+    return count;
+  }
+
+  /**
+   * Retourne la taille d'un nom encodé, calculée sans l'encoder
+   * (un surrogate isolé est remplacé par un octet, comme le fait l'encodeur UTF-8).
+   */
+  private static int nameSize(String name) {
+    int length = name.length();
+    int size = length;
+    for (int i = 0; i < length; i++) {
+      char c = name.charAt(i);
+      if (c >= 0x80) {
+        if (c < 0x800) {
+          size++;
+        } else if (!java.lang.Character.isSurrogate(c)) {
+          size += 2;
+        } else if (java.lang.Character.isHighSurrogate(c) && i + 1 < length
+            && java.lang.Character.isLowSurrogate(name.charAt(i + 1))) {
+          size += 2;
+          i++;
+        }
+      }
+    }
+    return Short.BYTES + size;
+  }
+
+  private static void writeName(String name, ByteBuffer buffer) {
+    byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > MAX_NAME_LENGTH) {
+      throw new IllegalArgumentException(MSG_NAME_TOO_LONG);
+    }
+    buffer.putShort((short) bytes.length);
+    buffer.put(bytes);
+  }
+
+  private static String readName(ByteBuffer buffer) {
+    byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -1,10 +1,321 @@
 package fr.uvsq.hal.pglp.rpgdao;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import fr.uvsq.hal.pglp.rpg.Ability;
+import fr.uvsq.hal.pglp.rpg.Character;
+import fr.uvsq.hal.pglp.rpg.CompactCharacter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * La classe <code>CharacterJdbcDao</code> est un DAO pour les personnages.
+ * Un personnage est stocké sur une ligne (nom, six scores, bonus de maîtrise et masque des compétences).
+ * Un nom de plus de <code>MAX_NAME_LENGTH</code> caractères est rejeté avant tout accès à la base.
+ * Les insertions en masse sont regroupées en lots d'une même requête préparée.
  *
  * @author hal
  * @version 2022
  */
-public class CharacterJdbcDao {
+public class CharacterJdbcDao implements Dao<Character> {
+  private static final Logger logger = LoggerFactory.getLogger(CharacterJdbcDao.class);
+
+  /** Nombre de lignes envoyées par lot lors des insertions en masse. */
+  public static final int BATCH_SIZE = 1000;
+
+  /** Nombre de lignes lues par défaut à chaque échange avec la base lors des lectures en flux. */
+  public static final int DEFAULT_FETCH_SIZE = 500;
+
+  /** Taille maximum par défaut du pool de connexions. */
+  public static final int DEFAULT_POOL_SIZE = 8;
+
+  /** Longueur maximum du nom d'un personnage stocké. */
+  public static final int MAX_NAME_LENGTH = 64;
+
+  private static final String MSG_NAME_TOO_LONG = "The name of the character is longer than %d characters.";
+
+  private static final Ability[] ABILITIES = Ability.values();
+
+  /** Code SQL d'une table existant déjà (Derby). */
+  private static final String SQL_STATE_TABLE_EXISTS = "X0Y32";
+
+  static final String CREATE_TABLE = """
+      CREATE TABLE characters (
+        name VARCHAR(%d) NOT NULL PRIMARY KEY,
+        strength SMALLINT NOT NULL CHECK (strength BETWEEN 1 AND 20),
+        dexterity SMALLINT NOT NULL CHECK (dexterity BETWEEN 1 AND 20),
+        constitution SMALLINT NOT NULL CHECK (constitution BETWEEN 1 AND 20),
+        intelligence SMALLINT NOT NULL CHECK (intelligence BETWEEN 1 AND 20),
+        wisdom SMALLINT NOT NULL CHECK (wisdom BETWEEN 1 AND 20),
+        charisma SMALLINT NOT NULL CHECK (charisma BETWEEN 1 AND 20),
+        proficiency_bonus SMALLINT NOT NULL,
+        skills INTEGER NOT NULL
+      )""".formatted(MAX_NAME_LENGTH);
+
+  private static final String COLUMNS =
+      "name, strength, dexterity, constitution, intelligence, wisdom, charisma, proficiency_bonus, skills";
+  private static final String INSERT = "INSERT INTO characters (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+  private static final String SELECT_BY_NAME = "SELECT " + COLUMNS + " FROM characters WHERE name = ?";
+  private static final String SELECT_ALL = "SELECT " + COLUMNS + " FROM characters ORDER BY name";
+  private static final String UPDATE = "UPDATE characters SET strength = ?, dexterity = ?, constitution = ?, "
+      + "intelligence = ?, wisdom = ?, charisma = ?, proficiency_bonus = ?, skills = ? WHERE name = ?";
+  private static final String DELETE = "DELETE FROM characters WHERE name = ?";
+  private static final String COUNT = "SELECT COUNT(*) FROM characters";
+
+  private final DataSource dataSource;
+
+  /**
+   * Crée un DAO utilisant une source de données et crée la table si nécessaire.
+   *
+   * @param dataSource la source de données
+   */
+  public CharacterJdbcDao(DataSource dataSource) {
+    this.dataSource = Objects.requireNonNull(dataSource);
+    createTable();
+  }
+
+  /**
+   * Crée un pool de connexions.
+   *
+   * @param jdbcUrl l'URL JDBC de la base (par exemple <code>jdbc:derby:rpg;create=true</code>)
+   * @return le pool, à fermer après utilisation
+   */
+  public static HikariDataSource createPool(String jdbcUrl) {
+    HikariConfig config = new HikariConfig();
+    config.setJdbcUrl(jdbcUrl);
+    config.setMaximumPoolSize(DEFAULT_POOL_SIZE);
+    config.setPoolName("rpg");
+    return new HikariDataSource(config);
+  }
+
+  private void createTable() {
+    try (Connection connection = dataSource.getConnection();
+         Statement statement = connection.createStatement()) {
+      statement.executeUpdate(CREATE_TABLE);
+      logger.debug("Table characters created");
+    } catch (SQLException e) {
+      if (!SQL_STATE_TABLE_EXISTS.equals(e.getSQLState())) {
+        throw new DaoException("Unable to create the characters table.", e);
+      }
+    }
+  }
+
+  @Override
+  public void create(Character character) {
+    createAll(List.of(character));
+  }
+
+  /**
+   * Rend persistants plusieurs personnages en une transaction,
+   * par lots de <code>BATCH_SIZE</code> lignes d'une même requête préparée.
+   *
+   * @param characters les personnages
+   */
+  @Override
+  public void createAll(Collection<? extends Character> characters) {
+    try (Connection connection = dataSource.getConnection()) {
+      boolean autoCommit = connection.getAutoCommit();
+      connection.setAutoCommit(false);
+      try (PreparedStatement statement = connection.prepareStatement(INSERT)) {
+        int pending = 0;
+        for (Character character : characters) {
+          bind(statement, toCompact(character));
+          statement.addBatch();
+          if (++pending == BATCH_SIZE) {
+            statement.executeBatch();
+            pending = 0;
+          }
+        }
+        if (pending > 0) {
+          statement.executeBatch();
+        }
+        connection.commit();
+      } catch (SQLException | RuntimeException e) {
+        connection.rollback();
+        throw e;
+      } finally {
+        connection.setAutoCommit(autoCommit);
+      }
+      logger.debug("{} characters created", characters.size());
+    } catch (SQLException e) {
+      throw new DaoException("Unable to create the characters.", e);
+    }
+  }
+
+  /**
+   * Retourne la représentation compacte d'un personnage à stocker.
+   *
+   * @throws IllegalArgumentException si le nom est trop long ou si le personnage n'est pas représentable
+   */
+  private static CompactCharacter toCompact(Character character) {
+    if (character.getName().length() > MAX_NAME_LENGTH) {
+      throw new IllegalArgumentException(String.format(MSG_NAME_TOO_LONG, MAX_NAME_LENGTH));
+    }
+    return CompactCharacter.of(character);
+  }
+
+  private static void bind(PreparedStatement statement, CompactCharacter character) throws SQLException {
+    statement.setString(1, character.getName());
+    for (Ability ability : ABILITIES) {
+      statement.setInt(2 + ability.ordinal(), character.get(ability).getScore());
+    }
+    statement.setInt(2 + ABILITIES.length, character.getProficiencyBonus());
+    statement.setInt(3 + ABILITIES.length, character.getSkillMask());
+  }
+
+  @Override
+  public Optional<Character> read(String name) {
+    try (Connection connection = dataSource.getConnection();
+         PreparedStatement statement = connection.prepareStatement(SELECT_BY_NAME)) {
+      statement.setString(1, name);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        return resultSet.next() ? Optional.of(decode(resultSet, new int[ABILITIES.length])) : Optional.empty();
+      }
+    } catch (SQLException e) {
+      throw new DaoException("Unable to read the character " + name + ".", e);
+    }
+  }
+
+  @Override
+  public boolean update(Character character) {
+    CompactCharacter compact = toCompact(character);
+    try (Connection connection = dataSource.getConnection();
+         PreparedStatement statement = connection.prepareStatement(UPDATE)) {
+      for (Ability ability : ABILITIES) {
+        statement.setInt(1 + ability.ordinal(), compact.get(ability).getScore());
+      }
+      statement.setInt(1 + ABILITIES.length, compact.getProficiencyBonus());
+      statement.setInt(2 + ABILITIES.length, compact.getSkillMask());
+      statement.setString(3 + ABILITIES.length, compact.getName());
+      return statement.executeUpdate() > 0;
+    } catch (SQLException e) {
+      throw new DaoException("Unable to update the character " + character.getName() + ".", e);
+    }
+  }
+
+  @Override
+  public boolean delete(String name) {
+    try (Connection connection = dataSource.getConnection();
+         PreparedStatement statement = connection.prepareStatement(DELETE)) {
+      statement.setString(1, name);
+      return statement.executeUpdate() > 0;
+    } catch (SQLException e) {
+      throw new DaoException("Unable to delete the character " + name + ".", e);
+    }
+  }
+
+  @Override
+  public List<Character> findAll() {
+    try (Stream<Character> characters = stream()) {
+      return characters.collect(Collectors.toList());
+    }
+  }
+
+  @Override
+  public Stream<Character> stream() {
+    return stream(DEFAULT_FETCH_SIZE);
+  }
+
+  /**
+   * Retourne tous les personnages persistants sous la forme d'un flux lu au fil de l'eau.
+   * Les lignes sont lues par un curseur en avant seulement, par paquets de <code>fetchSize</code> lignes,
+   * et décodées à la demande : la mémoire utilisée ne dépend pas du nombre de personnages.
+   * Le flux occupe une connexion jusqu'à sa fermeture et doit donc être fermé (try-with-resources).
+   *
+   * @param fetchSize le nombre de lignes lues à chaque échange avec la base
+   * @return le flux des personnages, par ordre de nom
+   */
+  public Stream<Character> stream(int fetchSize) {
+    CharacterCursor cursor = new CharacterCursor();
+    try {
+      cursor.open(dataSource, fetchSize);
+    } catch (SQLException e) {
+      cursor.close();
+      throw new DaoException("Unable to read the characters.", e);
+    }
+    return StreamSupport.stream(cursor, false).onClose(cursor::close);
+  }
+
+  /**
+   * Curseur en avant seulement sur la table des personnages.
+   * Le curseur possède sa connexion, sa requête et son résultat, libérés par <code>close</code>.
+   */
+  private static final class CharacterCursor extends Spliterators.AbstractSpliterator<Character> {
+    private final int[] scores = new int[ABILITIES.length];
+    private Connection connection;
+    private PreparedStatement statement;
+    private ResultSet resultSet;
+
+    CharacterCursor() {
+      super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT);
+    }
+
+    void open(DataSource dataSource, int fetchSize) throws SQLException {
+      connection = dataSource.getConnection();
+      statement = connection.prepareStatement(SELECT_ALL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      statement.setFetchSize(fetchSize);
+      resultSet = statement.executeQuery();
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Character> action) {
+      try {
+        if (!resultSet.next()) {
+          return false;
+        }
+        action.accept(decode(resultSet, scores));
+        return true;
+      } catch (SQLException e) {
+        throw new DaoException("Unable to read the characters.", e);
+      }
+    }
+
+    void close() {
+      close(resultSet);
+      close(statement);
+      close(connection);
+    }
+
+    private static void close(AutoCloseable resource) {
+      if (resource != null) {
+        try {
+          resource.close();
+        } catch (Exception e) {
+          logger.warn("Unable to close {}", resource, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Retourne le nombre de personnages persistants.
+   *
+   * @return le nombre de personnages
+   */
+  public int count() {
+    try (Connection connection = dataSource.getConnection();
+         Statement statement = connection.createStatement();
+         ResultSet resultSet = statement.executeQuery(COUNT)) {
+      resultSet.next();
+      return resultSet.getInt(1);
+    } catch (SQLException e) {
+      throw new DaoException("Unable to count the characters.", e);
+    }
+  }
+
+  private static Character decode(ResultSet resultSet, int[] scores) throws SQLException {
+    for (int i = 0; i < scores.length; i++) {
+      scores[i] = resultSet.getInt(2 + i);
+    }
+    return CompactCharacter.of(resultSet.getString(1), CompactCharacter.packAbilities(scores),
+      resultSet.getInt(3 + ABILITIES.length), resultSet.getInt(2 + ABILITIES.length)).toCharacter();
+  }
 }
@@ -0,0 +1,73 @@
+package fr.uvsq.hal.pglp.rpgdao;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * L'interface <code>Dao</code> définit les opérations CRUD d'un objet métier.
+ *
+ * @param <T> le type des objets persistés
+ * @author hal
+ * @version 2022
+ */
+public interface Dao<T> {
+  /**
+   * Rend un objet persistant.
+   *
+   * @param object l'objet
+   * @throws DaoException si l'objet existe déjà ou en cas d'erreur de persistance
+   */
+  void create(T object);
+
+  /**
+   * Rend persistants plusieurs objets.
+   *
+   * @param objects les objets
+   * @throws DaoException si un objet existe déjà ou en cas d'erreur de persistance
+   */
+  default void createAll(Collection<? extends T> objects) {
+    objects.forEach(this::create);
+  }
+
+  /**
+   * Recherche un objet par son identifiant.
+   *
+   * @param id l'identifiant
+   * @return l'objet s'il existe
+   */
+  Optional<T> read(String id);
+
+  /**
+   * Met à jour un objet persistant.
+   *
+   * @param object l'objet
+   * @return true si l'objet existait, false sinon
+   */
+  boolean update(T object);
+
+  /**
+   * Supprime un objet persistant.
+   *
+   * @param id l'identifiant de l'objet
+   * @return true si l'objet existait, false sinon
+   */
+  boolean delete(String id);
+
+  /**
+   * Retourne tous les objets persistants.
+   *
+   * @return les objets
+   */
+  List<T> findAll();
+
+  /**
+   * Retourne tous les objets persistants sous la forme d'un flux, à fermer après utilisation.
+   *
+   * @return le flux des objets
+   */
+  default Stream<T> stream() {
+    return findAll().stream();
+  }
+}
@@ -0,0 +1,21 @@
+package fr.uvsq.hal.pglp.rpgdao;
+
+/**
+ * La classe <code>DaoException</code> signale une erreur de la couche de persistance.
+ *
+ * @author hal
+ * @version 2022
+ */
+public class DaoException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Crée une exception.
+   *
+   * @param message le message
+   * @param cause la cause
+   */
+  public DaoException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
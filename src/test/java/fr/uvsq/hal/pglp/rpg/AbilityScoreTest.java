@@ -18,7 +18,7 @@ class AbilityScoreTest {
   public void aGeneratedScoreHaveToBeValid() {
     AbilityScore as = new AbilityScore();
     assertTrue(as.isValid(), "The score " + as + " is invalid.");
-    assertEquals(11, as.getScore());
+    assertEquals(18, as.getScore());
   }
 
   @ParameterizedTest
@@ -42,4 +42,22 @@ class AbilityScoreTest {
     assertEquals(modifier, as.getModifier(),
       "The modifier " + as.getModifier() + " does not correspond to score " + score + " (expected: " + modifier + ")");
   }
+
+  @Test
+  public void abilityScoresShouldBeShared() {
+    for (int score = AbilityScore.MIN_SCORE; score <= AbilityScore.MAX_SCORE; score++) {
+      assertSame(AbilityScore.of(score), AbilityScore.of(score));
+      assertEquals(new AbilityScore(score), AbilityScore.of(score));
+      assertEquals(new AbilityScore(score).getModifier(), AbilityScore.of(score).getModifier());
+    }
+    AbilityScore random = AbilityScore.random(RandomSource.of(1L));
+    assertSame(AbilityScore.of(random.getScore()), random);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = { -1, 0, 21 })
+  public void anInvalidSharedScoreThrowsAnException(int score) {
+    Exception exception = assertThrows(IllegalArgumentException.class, () -> AbilityScore.of(score));
+    assertEquals("The score is invalid.", exception.getMessage());
+  }
 }
@@ -0,0 +1,59 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AbilityScoresSamplerTest {
+  private static final int SAMPLES = 20_000;
+
+  @ParameterizedTest
+  @EnumSource(AbilityScoresSampler.class)
+  public void sampledScoresShouldHaveAValidSum(AbilityScoresSampler sampler) {
+    RandomSource randomSource = RandomSource.of(1L);
+    for (int i = 0; i < SAMPLES; i++) {
+      AbilityScore[] scores = sampler.sample(randomSource);
+      assertEquals(Ability.values().length, scores.length);
+      int sum = 0;
+      for (AbilityScore score : scores) {
+        assertTrue(score.getScore() >= 3 && score.getScore() <= 18);
+        sum += score.getScore();
+      }
+      assertTrue(sum >= CharacterBuilder.MIN_SUM_SCORE && sum <= CharacterBuilder.MAX_SUM_SCORE);
+    }
+  }
+
+  @Test
+  public void bothModesShouldHaveTheSameDistribution() {
+    double[] rejection = scoreFrequencies(AbilityScoresSampler.Rejection);
+    double[] direct = scoreFrequencies(AbilityScoresSampler.Direct);
+    for (int score = 3; score <= 18; score++) {
+      assertEquals(rejection[score], direct[score], 0.01, "Frequency of " + score);
+    }
+  }
+
+  @Test
+  public void theAcceptanceRateShouldBeMeasured() {
+    AbilityScoresSampler.resetStatistics();
+    assertTrue(Double.isNaN(AbilityScoresSampler.getAcceptanceRate()));
+    RandomSource randomSource = RandomSource.of(1L);
+    for (int i = 0; i < SAMPLES; i++) {
+      AbilityScoresSampler.Rejection.sample(randomSource);
+    }
+    assertTrue(AbilityScoresSampler.getRejectionAttempts() >= SAMPLES);
+    assertEquals(AbilityScoresSampler.expectedAcceptanceRate(), AbilityScoresSampler.getAcceptanceRate(), 0.01);
+  }
+
+  private static double[] scoreFrequencies(AbilityScoresSampler sampler) {
+    RandomSource randomSource = RandomSource.of(2L);
+    double[] frequencies = new double[19];
+    for (int i = 0; i < SAMPLES; i++) {
+      for (AbilityScore score : sampler.sample(randomSource)) {
+        frequencies[score.getScore()] += 1.0 / (SAMPLES * Ability.values().length);
+      }
+    }
+    return frequencies;
+  }
+}
@@ -0,0 +1,67 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static fr.uvsq.hal.pglp.rpg.DifficultyClass.*;
+import static fr.uvsq.hal.pglp.rpg.Skill.Acrobatics;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncChecksTest {
+  private Character frodon;
+
+  @BeforeEach
+  public void setup() {
+    frodon = new CharacterBuilder("Frodon")
+      .nonRamdomAbilities(Ability.values())
+      .isProficientIn(Acrobatics)
+      .build();
+  }
+
+  @Test
+  public void aCheckShouldBeResolvedAsynchronously() throws Exception {
+    try (AsyncChecks checks = new AsyncChecks(1L)) {
+      CheckResult result = checks.checks(frodon, Acrobatics, Medium, Character.Advantage.None).get();
+      assertEquals(frodon.getProficiencyBonusIn(Acrobatics), result.modifier());
+      assertEquals(Medium, result.difficultyClass());
+      assertTrue(result.rolled() >= 1 && result.rolled() <= 20);
+      assertEquals(result.total() >= Medium.getDifficultyClass(), result.success());
+
+      CheckResult ability = checks.checks(frodon, Ability.Strength, VeryEasy, Character.Advantage.Advantage).get();
+      assertEquals(frodon.getModifier(Ability.Strength), ability.modifier());
+    }
+  }
+
+  @Test
+  public void batchChecksShouldBeReproducible() throws Exception {
+    List<Character> characters = new CharacterGenerator(1L).generate(1000);
+    List<CheckResult> first;
+    List<CheckResult> second;
+    try (AsyncChecks checks = new AsyncChecks(1L)) {
+      first = checks.checkAll(characters, Acrobatics, Medium, Character.Advantage.Disadvantage).get();
+    }
+    try (AsyncChecks checks = new AsyncChecks(1L)) {
+      second = checks.checkAll(characters, Acrobatics, Medium, Character.Advantage.Disadvantage).get();
+    }
+    assertEquals(characters.size(), first.size());
+    assertEquals(first, second);
+    for (int i = 0; i < characters.size(); i++) {
+      assertEquals(characters.get(i).getProficiencyBonusIn(Acrobatics), first.get(i).modifier());
+    }
+  }
+
+  @Test
+  public void resolveShouldMatchChecks() {
+    for (DifficultyClass difficultyClass : DifficultyClass.values()) {
+      CheckResult result = frodon.resolve(Acrobatics, difficultyClass, Character.Advantage.None, RandomSource.of(1L));
+      Character seeded = new CharacterBuilder("Frodon")
+        .nonRamdomAbilities(Ability.values())
+        .isProficientIn(Acrobatics)
+        .setRandomSource(RandomSource.of(1L))
+        .build();
+      assertEquals(seeded.checks(Acrobatics, difficultyClass), result.success());
+    }
+  }
+}
@@ -14,7 +14,7 @@ import static org.junit.jupiter.api.Assertions.*;
 public class CharacterBuilderTest {
   private static final int[] PREDEFINED_SCORES = { 15, 14, 13, 12, 10, 8 };
 
-  private final int[] expectedRandomAbilitiesScores = { 14, 13, 11, 11, 10, 7 };
+  private final int[] expectedRandomAbilitiesScores = { 17, 17, 15, 11, 9, 7 };
 
   @BeforeEach
   public void setup() {
@@ -27,6 +27,17 @@ public class CharacterBuilderTest {
     assertRandomCharacter(frodon, "Frodon", Ability.values(), expectedRandomAbilitiesScores, CharacterBuilder.FIRST_LEVEL_PROFICIENCY_BONUS);
   }
 
+  @Test
+  public void aCharacterShouldNotChangeWhenItsBuilderChanges() {
+    CharacterBuilder builder = new CharacterBuilder("Frodon").nonRamdomAbilities(Ability.values()).isProficientIn(Acrobatics);
+    Character frodon = builder.build();
+    builder.setAbility(Dexterity, 20).isProficientIn(Perception);
+    assertEquals(14, frodon.get(Dexterity).getScore());
+    assertEquals(2, frodon.getModifier(Dexterity));
+    assertEquals(4, frodon.getProficiencyBonusIn(Acrobatics));
+    assertFalse(frodon.isProficientIn(Perception));
+  }
+
   @Test
   public void aCharacterNameShouldNotBeNull() {
     Exception exception = assertThrows(NullPointerException.class, () -> new CharacterBuilder(null).build());
@@ -75,7 +86,7 @@ public class CharacterBuilderTest {
       .setAbility(Strength, 20)
       .build();
     assertEquals(20, frodon.get(Strength).getScore());
-    int[] expectedScores = { 20, 13, 11, 11, 10, 7 };
+    int[] expectedScores = { 20, 17, 15, 11, 9, 7 };
     assertCharacter(frodon, "Frodon", Ability.values(), expectedScores, CharacterBuilder.FIRST_LEVEL_PROFICIENCY_BONUS);
   }
 
@@ -0,0 +1,55 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static fr.uvsq.hal.pglp.rpg.Ability.*;
+import static fr.uvsq.hal.pglp.rpg.Skill.Stealth;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CharacterGeneratorTest {
+  private static final int COUNT = 3 * CharacterGenerator.PARTITION_SIZE + 17;
+
+  @Test
+  public void generatedCharactersShouldBeValid() {
+    Ability[] abilitiesOrder = { Dexterity, Wisdom, Constitution, Strength, Intelligence, Charisma };
+    List<Character> characters = new CharacterGenerator(42L)
+      .setAbilitiesOrder(abilitiesOrder)
+      .setProficiencyBonus(3)
+      .isProficientIn(Stealth)
+      .generate(COUNT);
+    assertEquals(COUNT, characters.size());
+    assertEquals("NPC-0", characters.get(0).getName());
+    for (Character character : characters) {
+      int sum = 0;
+      for (int i = 0; i < abilitiesOrder.length; i++) {
+        sum += character.get(abilitiesOrder[i]).getScore();
+        if (i > 0) {
+          assertTrue(character.get(abilitiesOrder[i - 1]).compareTo(character.get(abilitiesOrder[i])) >= 0);
+        }
+      }
+      assertTrue(sum >= CharacterBuilder.MIN_SUM_SCORE && sum <= CharacterBuilder.MAX_SUM_SCORE);
+      assertEquals(3, character.getProficiencyBonus());
+      assertTrue(character.isProficientIn(Stealth));
+    }
+  }
+
+  @Test
+  public void generationShouldNotDependOnTheNumberOfThreads() throws Exception {
+    CharacterGenerator generator = new CharacterGenerator(42L);
+    List<Character> parallel = generator.generate(COUNT);
+    ForkJoinPool singleThread = new ForkJoinPool(1);
+    try {
+      List<Character> sequential = singleThread.submit(() -> generator.generate(COUNT)).get();
+      for (int i = 0; i < COUNT; i++) {
+        for (Ability ability : Ability.values()) {
+          assertEquals(parallel.get(i).get(ability), sequential.get(i).get(ability));
+        }
+      }
+    } finally {
+      singleThread.shutdown();
+    }
+  }
+}
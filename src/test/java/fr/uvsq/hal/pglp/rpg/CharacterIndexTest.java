@@ -0,0 +1,65 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static fr.uvsq.hal.pglp.rpg.Ability.Dexterity;
+import static fr.uvsq.hal.pglp.rpg.Skill.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CharacterIndexTest {
+  private List<Character> characters;
+  private CharacterIndex index;
+
+  @BeforeEach
+  public void setup() {
+    Dice.setSeed(1L);
+    characters = IntStream.range(0, 500)
+      .mapToObj(i -> new CharacterBuilder("NPC-" + i, Ability.values())
+        .setProficiencyBonus(2 + i % 3)
+        .isProficientIn(i % 2 == 0 ? new Skill[] { Stealth, Perception } : new Skill[] { Athletics })
+        .build())
+      .collect(Collectors.toList());
+    index = new CharacterIndex(characters);
+  }
+
+  @Test
+  public void anIndexShouldFindProficientCharacters() {
+    List<Character> expected = characters.stream()
+      .filter(character -> character.isProficientIn(Stealth) && character.get(Dexterity).getScore() >= 14)
+      .collect(Collectors.toList());
+    assertFalse(expected.isEmpty());
+    assertEquals(expected, index.findProficientIn(Stealth, Dexterity, 14));
+    assertEquals(250, index.proficientIn(Perception).cardinality());
+  }
+
+  @Test
+  public void anIndexShouldSelectScoreRanges() {
+    for (int score = AbilityScore.MIN_SCORE; score <= AbilityScore.MAX_SCORE; score++) {
+      final int min = score;
+      long expected = characters.stream().filter(character -> character.get(Dexterity).getScore() >= min).count();
+      assertEquals(expected, index.withScoreAtLeast(Dexterity, score).cardinality());
+    }
+    assertEquals(characters.size(), index.withScoreBetween(Dexterity, 1, 20).cardinality());
+    assertThrows(IllegalArgumentException.class, () -> index.withScoreBetween(Dexterity, 12, 10));
+  }
+
+  @Test
+  public void anIndexShouldReturnTheTopK() {
+    List<Character> expected = characters.stream()
+      .sorted(Comparator.comparingInt((Character character) -> character.getProficiencyBonusIn(Perception))
+        .reversed())
+      .limit(20)
+      .collect(Collectors.toList());
+    assertEquals(expected, index.topK(Perception, 20));
+    assertEquals(characters.size(), index.topK(Perception, 1000).size());
+    assertTrue(index.topK(Perception, 0).isEmpty());
+    assertTrue(new CharacterIndex(List.of()).topK(Perception, 3).isEmpty());
+    assertThrows(IllegalArgumentException.class, () -> index.topK(Perception, -1));
+  }
+}
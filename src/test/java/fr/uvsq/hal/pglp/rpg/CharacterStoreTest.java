@@ -0,0 +1,77 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static fr.uvsq.hal.pglp.rpg.Ability.Strength;
+import static fr.uvsq.hal.pglp.rpg.DifficultyClass.*;
+import static fr.uvsq.hal.pglp.rpg.Skill.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CharacterStoreTest {
+  private List<Character> characters;
+  private CharacterStore store;
+
+  @BeforeEach
+  public void setup() {
+    characters = new CharacterGenerator(1L)
+      .isProficientIn(Acrobatics, History)
+      .setProficiencyBonus(3)
+      .generate(100);
+    store = new CharacterStore();
+    characters.forEach(store::add);
+  }
+
+  @Test
+  public void aStoreShouldKeepAllCharacters() {
+    assertEquals(characters.size(), store.size());
+    for (int i = 0; i < store.size(); i++) {
+      Character character = characters.get(i);
+      assertEquals(character.getName(), store.getName(i));
+      assertEquals(character.getProficiencyBonus(), store.getProficiencyBonus(i));
+      for (Ability ability : Ability.values()) {
+        assertSame(character.get(ability), store.get(i, ability));
+      }
+      for (Skill skill : Skill.values()) {
+        assertEquals(character.isProficientIn(skill), store.isProficientIn(i, skill));
+        assertEquals(character.getProficiencyBonusIn(skill), store.getProficiencyBonusIn(i, skill));
+      }
+    }
+    assertEquals(characters.get(42).getName(), store.getCharacter(42).getName());
+  }
+
+  @Test
+  public void anInvalidIndexShouldBeRejected() {
+    assertThrows(IndexOutOfBoundsException.class, () -> store.getName(store.size()));
+    assertThrows(IndexOutOfBoundsException.class, () -> store.get(-1, Strength));
+  }
+
+  @Test
+  public void aNegativeCapacityShouldBeRejected() {
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> new CharacterStore(-1));
+    assertEquals("The capacity of the store cannot be negative.", e.getMessage());
+  }
+
+  @Test
+  public void bulkChecksShouldMatchIndividualChecks() {
+    for (Character.Advantage advantage : Character.Advantage.values()) {
+      Dice.setSeed(1L);
+      BitSet successes = store.checks(Acrobatics, Medium, advantage);
+      Dice.setSeed(1L);
+      for (int i = 0; i < store.size(); i++) {
+        assertEquals(store.getCharacter(i).checks(Acrobatics, Medium, advantage), successes.get(i));
+      }
+    }
+  }
+
+  @Test
+  public void bulkAbilityChecksShouldFollowTheModifiers() {
+    BitSet successes = store.checks(Strength, VeryEasy, Character.Advantage.None, RandomSource.of(1L));
+    assertTrue(successes.length() <= store.size());
+    assertTrue(store.checks(Strength, NearlyImpossible, Character.Advantage.Disadvantage).cardinality()
+      < successes.cardinality());
+  }
+}
@@ -25,17 +25,17 @@ public class CharacterTest {
   @Test
   public void aCharacterShouldPerformAnAbilityCheck() {
     // Strength = 15 (2)
-    // d20 rolled = 13
+    // d20 rolled = 20
     assertTrue(frodon.checks(Strength, VeryEasy));
-    // d20 rolled : 17
+    // d20 rolled : 20
     assertTrue(frodon.checks(Strength, Easy));
-    // d20 rolled : 1
+    // d20 rolled : 2
     assertFalse(frodon.checks(Strength, Medium));
-    // d20 rolled : 19
+    // d20 rolled : 18
     assertTrue(frodon.checks(Strength, Hard));
-    // d20 rolled : 1
+    // d20 rolled : 8
     assertFalse(frodon.checks(Strength, VeryHard));
-    // d20 rolled : 10
+    // d20 rolled : 5
     assertFalse(frodon.checks(Strength, NearlyImpossible));
   }
 
@@ -48,38 +48,50 @@ public class CharacterTest {
   @Test
   public void aCharacterShouldPerformASkillCheck() {
     // Dexterity = 14 (2)
-    // d20 rolled = 13
+    // d20 rolled = 20
     assertTrue(frodon.checks(Acrobatics, VeryEasy));
-    // d20 rolled : 17
+    // d20 rolled : 20
     assertTrue(frodon.checks(Acrobatics, Easy));
-    // d20 rolled : 1
+    // d20 rolled : 2
     assertFalse(frodon.checks(Acrobatics, Medium));
-    // d20 rolled : 19
+    // d20 rolled : 18
     assertTrue(frodon.checks(Acrobatics, Hard));
-    // d20 rolled : 1
+    // d20 rolled : 8
     assertFalse(frodon.checks(Acrobatics, VeryHard));
-    // d20 rolled : 10
+    // d20 rolled : 5
     assertFalse(frodon.checks(Acrobatics, NearlyImpossible));
   }
 
   @Test
   public void aCharacterShouldPerformVariousChecks() {
     // Dexterity = 14 (2)
-    // d20 rolled = 13
+    // d20 rolled = 20
     assertFalse(frodon.checks(Strength, VeryHard));
-    // d20 rolled : 17
-    // d20 rolled : 1
+    // d20 rolled : 20
+    // d20 rolled : 2
     assertTrue(frodon.checks(Strength, VeryEasy, Character.Advantage.Advantage));
-    // d20 rolled : 19
-    // d20 rolled : 1
+    // d20 rolled : 18
+    // d20 rolled : 8
     assertFalse(frodon.checks(Strength, Medium, Character.Advantage.Disadvantage));
-    // d20 rolled : 10
+    // d20 rolled : 5
     assertFalse(frodon.checks(Acrobatics, Medium));
+    // d20 rolled : 4
     // d20 rolled : 7
-    // d20 rolled : 15
     assertFalse(frodon.checks(Acrobatics, Hard, Character.Advantage.Advantage));
-    // d20 rolled : 9
-    // d20 rolled : 17
+    // d20 rolled : 12
+    // d20 rolled : 16
     assertFalse(frodon.checks(Acrobatics, NearlyImpossible, Character.Advantage.Disadvantage));
   }
+
+  @Test
+  public void aCharacterShouldKnowItsChancesOfSuccess() {
+    // Strength = 15 (2) : Medium needs 13+ on the d20
+    assertEquals(0.4, frodon.successProbability(Strength, Medium), 1e-12);
+    assertEquals(0.64, frodon.successProbability(Strength, Medium, Character.Advantage.Advantage), 1e-12);
+    assertEquals(0.16, frodon.successProbability(Strength, Medium, Character.Advantage.Disadvantage), 1e-12);
+    assertEquals(0.9, frodon.successProbability(Strength, VeryEasy), 1e-12);
+    assertEquals(0.0, frodon.successProbability(Strength, NearlyImpossible), 1e-12);
+    // Acrobatics = 14 (2) + 2 : Hard needs 16+ on the d20
+    assertEquals(0.25, frodon.successProbability(Acrobatics, Hard), 1e-12);
+  }
 }
@@ -0,0 +1,96 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+
+import static fr.uvsq.hal.pglp.rpg.Skill.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactCharacterTest {
+  private Character frodon;
+
+  @BeforeEach
+  public void setup() {
+    frodon = new CharacterBuilder("Frodon")
+      .nonRamdomAbilities(Ability.values())
+      .setProficiencyBonus(3)
+      .isProficientIn(Acrobatics, History, Medicine)
+      .build();
+  }
+
+  @Test
+  public void aCompactCharacterShouldKeepAllFields() {
+    CompactCharacter compact = CompactCharacter.of(frodon);
+    assertEquals("Frodon", compact.getName());
+    assertEquals(3, compact.getProficiencyBonus());
+    for (Ability ability : Ability.values()) {
+      assertSame(frodon.get(ability), compact.get(ability));
+    }
+    for (Skill skill : Skill.values()) {
+      assertEquals(frodon.isProficientIn(skill), compact.isProficientIn(skill));
+      assertEquals(frodon.getProficiencyBonusIn(skill), compact.getProficiencyBonusIn(skill));
+    }
+  }
+
+  @Test
+  public void aCompactCharacterShouldBeConvertedBack() {
+    Character character = CompactCharacter.of(frodon).toCharacter();
+    assertEquals(frodon.getName(), character.getName());
+    assertEquals(frodon.getProficiencyBonus(), character.getProficiencyBonus());
+    for (Ability ability : Ability.values()) {
+      assertEquals(frodon.get(ability), character.get(ability));
+    }
+    for (Skill skill : Skill.values()) {
+      assertEquals(frodon.isProficientIn(skill), character.isProficientIn(skill));
+    }
+  }
+
+  @Test
+  public void scoresShouldBePackedOnFiveBits() {
+    int packed = CompactCharacter.packAbilities(frodon);
+    assertEquals(0, packed >>> 30);
+    for (Ability ability : Ability.values()) {
+      assertEquals(frodon.get(ability).getScore(), CompactCharacter.unpackScore(packed, ability));
+    }
+  }
+
+  @Test
+  public void scoresShouldBePackedFromAnArray() {
+    int[] scores = new int[Ability.values().length];
+    for (Ability ability : Ability.values()) {
+      scores[ability.ordinal()] = frodon.get(ability).getScore();
+    }
+    assertEquals(CompactCharacter.packAbilities(frodon), CompactCharacter.packAbilities(scores));
+    assertThrows(IllegalArgumentException.class, () -> CompactCharacter.packAbilities(new int[] { 10, 10 }));
+    scores[0] = 32;
+    assertThrows(IllegalArgumentException.class, () -> CompactCharacter.packAbilities(scores));
+  }
+
+  @Test
+  public void skillsShouldBeConvertedToAndFromAMask() {
+    EnumSet<Skill> skills = EnumSet.of(Acrobatics, History, Persuasion);
+    int mask = Skill.toMask(skills);
+    assertEquals(3, Integer.bitCount(mask));
+    assertEquals(skills, Skill.fromMask(mask));
+    assertEquals(mask, CompactCharacter.of("Sam", 0x0a52_94a5, mask, 2).getSkillMask());
+  }
+
+  @Test
+  public void invalidPackedScoresShouldBeRejected() {
+    assertThrows(IllegalArgumentException.class, () -> CompactCharacter.of("Sam", 0, 0, 2));
+  }
+
+  @Test
+  public void outOfRangeFieldsShouldBeRejected() {
+    int packed = CompactCharacter.packAbilities(frodon);
+    assertThrows(IllegalArgumentException.class, () -> CompactCharacter.of("Sam", packed, 1 << 18, 2));
+    assertThrows(IllegalArgumentException.class, () -> CompactCharacter.of("Sam", packed, 0, 200));
+    Character gandalf = new CharacterBuilder("Gandalf")
+      .nonRamdomAbilities(Ability.values())
+      .setProficiencyBonus(200)
+      .build();
+    assertThrows(IllegalArgumentException.class, () -> CompactCharacter.of(gandalf));
+  }
+}
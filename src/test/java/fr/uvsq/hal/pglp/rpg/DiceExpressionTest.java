@@ -0,0 +1,101 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static fr.uvsq.hal.pglp.rpg.Dice.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DiceExpressionTest {
+  @Test
+  public void parsedExpressionsShouldBeCached() {
+    assertSame(DiceExpression.parse("4d6kh3+2"), DiceExpression.parse("4d6kh3+2"));
+    assertEquals("4d6kh3+2", DiceExpression.parse("4d6kh3+2").toString());
+  }
+
+  @Test
+  public void keepHighestShouldMatchDiceGroup() {
+    RandomSource expected = RandomSource.of(1L);
+    RandomSource actual = RandomSource.of(1L);
+    DiceExpression expression = DiceExpression.parse("4d6kh3 + 2");
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(DiceGroup.of(4, d6).keepHighest(3, expected) + 2, expression.roll(actual));
+    }
+  }
+
+  @Test
+  public void keepLowestShouldMatchDiceGroup() {
+    RandomSource expected = RandomSource.of(2L);
+    RandomSource actual = RandomSource.of(2L);
+    DiceExpression expression = DiceExpression.parse("2d20kl1");
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(DiceGroup.of(2, d20).min(expected), expression.roll(actual));
+    }
+  }
+
+  @Test
+  public void sumsShouldBeMergedIntoOneGroup() {
+    RandomSource expected = RandomSource.of(3L);
+    RandomSource actual = RandomSource.of(3L);
+    DiceExpression expression = DiceExpression.parse("1d8+3+1D6-1+d8");
+    DiceGroup group = new DiceGroup.Builder(1, d6).add(2, d8).build();
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(group.sum(expected) + 2, expression.roll(actual));
+    }
+  }
+
+  @Test
+  public void subtractedDicesShouldBeNegative() {
+    DiceExpression expression = DiceExpression.parse("-1d4");
+    RandomSource source = RandomSource.of(4L);
+    for (int i = 0; i < 1000; i++) {
+      int value = expression.roll(source);
+      assertTrue(value >= -4 && value <= -1);
+    }
+    assertEquals(5, DiceExpression.parse("7-2").roll());
+  }
+
+  @Test
+  public void explodingDicesShouldRerollMaximums() {
+    DiceExpression expression = DiceExpression.parse("1d4!");
+    RandomSource source = RandomSource.of(5L);
+    int trials = 100_000;
+    long total = 0;
+    boolean exploded = false;
+    for (int i = 0; i < trials; i++) {
+      int value = expression.roll(source);
+      assertTrue(value >= 1 && value % 4 != 0);
+      exploded |= value > 4;
+      total += value;
+    }
+    assertTrue(exploded);
+    assertEquals(2.5 * 4 / 3, (double) total / trials, 0.05);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = { "", "d", "3d7", "0d6", "4d6kh5", "4d6kh0", "2d6kx1", "1d6 2", "1d6+", "1d6*2", "abc", "\u0663d6", "1d\uFF16" })
+  public void invalidExpressionsShouldBeRejected(String notation) {
+    assertThrows(IllegalArgumentException.class, () -> DiceExpression.parse(notation));
+  }
+
+  @Test
+  public void aNullExpressionShouldBeRejected() {
+    assertThrows(IllegalArgumentException.class, () -> DiceExpression.parse(null));
+  }
+
+  @Test
+  public void aConstantOverflowShouldBeRejected() {
+    String notation = "+1000000".repeat(Integer.MAX_VALUE / 1_000_000 + 1);
+    assertThrows(IllegalArgumentException.class, () -> DiceExpression.parse(notation));
+  }
+
+  @Test
+  public void aFullCacheShouldMakeRoomForNewExpressions() {
+    for (int i = 0; i <= DiceExpression.MAX_CACHED_EXPRESSIONS; i++) {
+      DiceExpression.parse("1d6+" + i);
+    }
+    String notation = "1d6+" + (DiceExpression.MAX_CACHED_EXPRESSIONS + 1);
+    assertSame(DiceExpression.parse(notation), DiceExpression.parse(notation));
+  }
+}
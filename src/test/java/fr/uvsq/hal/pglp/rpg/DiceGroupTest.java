@@ -3,9 +3,12 @@ package fr.uvsq.hal.pglp.rpg;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.BufferOverflowException;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
 import static fr.uvsq.hal.pglp.rpg.Dice.*;
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.*;
 
 class DiceGroupTest {
   @BeforeEach
@@ -17,8 +20,8 @@ class DiceGroupTest {
   public void aDiceGroupShouldReturnCorrectValues() {
     DiceGroup twoD20 = new DiceGroup.Builder(2, d20).build();
     int[] values = twoD20.roll();
-    assertEquals(13, values[0]);
-    assertEquals(9, values[1]);
+    assertEquals(2, values[0]);
+    assertEquals(20, values[1]);
   }
 
   @Test
@@ -38,16 +41,16 @@ class DiceGroupTest {
       .build();
     int[] values = diceGroup.roll();
     assertEquals(10, values.length);
-    assertEquals(2, values[0]);
-    assertEquals(1, values[1]);
-    assertEquals(2, values[2]);
-    assertEquals(1, values[3]);
-    assertEquals(5, values[4]);
-    assertEquals(4, values[5]);
-    assertEquals(3, values[6]);
-    assertEquals(11, values[7]);
-    assertEquals(4, values[8]);
-    assertEquals(17, values[9]);
+    assertEquals(3, values[0]);
+    assertEquals(3, values[1]);
+    assertEquals(3, values[2]);
+    assertEquals(2, values[3]);
+    assertEquals(4, values[4]);
+    assertEquals(6, values[5]);
+    assertEquals(5, values[6]);
+    assertEquals(7, values[7]);
+    assertEquals(14, values[8]);
+    assertEquals(16, values[9]);
   }
 
   @Test
@@ -56,14 +59,147 @@ class DiceGroupTest {
     int value = twoD20.rollnSun();
     assertEquals(22, value);
     value = twoD20.rollnMin();
-    assertEquals(1, value);
+    assertEquals(10, value);
     value = twoD20.rollnMax();
-    assertEquals(6, value);
+    assertEquals(20, value);
     value = twoD20.rollnApply(Integer::sum);
-    assertEquals(32, value);
+    assertEquals(24, value);
     value = twoD20.rollnApply(Integer::min);
-    assertEquals(4, value);
+    assertEquals(14, value);
     value = twoD20.rollnApply(Integer::max);
-    assertEquals(12, value);
+    assertEquals(17, value);
+  }
+
+  @Test
+  public void sharedDiceGroupsShouldBeCached() {
+    assertSame(DiceGroup.of(2, d20), DiceGroup.of(2, d20));
+    assertSame(DiceGroup.of(4, d6), DiceGroup.of(4, d6));
+    assertEquals(4, DiceGroup.of(4, d6).getNumberOfDices(d6));
+    assertEquals("4d6", DiceGroup.of(4, d6).toString());
+  }
+
+  @Test
+  public void aDiceGroupShouldNotChangeAfterBuild() {
+    DiceGroup.Builder builder = new DiceGroup.Builder(2, d20);
+    DiceGroup twoD20 = builder.build();
+    builder.add(3, d4);
+    assertEquals(2, twoD20.getNumberOfDices());
+    assertEquals(0, twoD20.getNumberOfDices(d4));
+  }
+
+  @Test
+  public void keepOperationsShouldMatchRolledValues() {
+    DiceGroup diceGroup = new DiceGroup.Builder(3, d20).add(2, d6).build();
+    for (int n = 1; n <= diceGroup.getNumberOfDices(); n++) {
+      Dice.setSeed(n);
+      int[] values = diceGroup.roll();
+      Arrays.sort(values);
+      int highest = Arrays.stream(values, values.length - n, values.length).sum();
+      int lowest = Arrays.stream(values, 0, n).sum();
+      Dice.setSeed(n);
+      assertEquals(highest, diceGroup.keepHighest(n));
+      Dice.setSeed(n);
+      assertEquals(lowest, diceGroup.keepLowest(n));
+    }
+  }
+
+  @Test
+  public void keepingAnInvalidNumberOfDicesShouldFail() {
+    Exception exception = assertThrows(IllegalArgumentException.class, () -> DiceGroup.of(4, d6).keepHighest(5));
+    assertEquals("The number of kept dices is invalid.", exception.getMessage());
+  }
+
+  @Test
+  public void sumDistributionShouldBeExact() {
+    Distribution twoD6 = DiceGroup.of(2, d6).sumDistribution();
+    assertEquals(2, twoD6.getMin());
+    assertEquals(12, twoD6.getMax());
+    assertEquals(6.0 / 36, twoD6.probability(7), 1e-12);
+    assertEquals(7.0, twoD6.mean(), 1e-12);
+    assertEquals(35.0 / 6, twoD6.variance(), 1e-12);
+    assertEquals(1.0, twoD6.cumulative(12), 1e-12);
+    assertEquals(3.0 / 36, twoD6.cumulative(3), 1e-12);
+  }
+
+  @Test
+  public void keepDistributionsShouldBeExact() {
+    Distribution fourD6kh3 = DiceGroup.of(4, d6).keepHighestDistribution(3);
+    assertEquals(3, fourD6kh3.getMin());
+    assertEquals(18, fourD6kh3.getMax());
+    assertEquals(21.0 / 1296, fourD6kh3.probability(18), 1e-12);
+    assertEquals(15869.0 / 1296, fourD6kh3.mean(), 1e-12);
+    assertSame(fourD6kh3, DiceGroup.of(4, d6).keepHighestDistribution(3));
+
+    Distribution advantage = DiceGroup.of(2, d20).maxDistribution();
+    assertEquals(39.0 / 400, advantage.probability(20), 1e-12);
+    assertEquals(13.825, advantage.mean(), 1e-12);
+    assertEquals(7.175, DiceGroup.of(2, d20).minDistribution().mean(), 1e-12);
+  }
+
+  @Test
+  public void keepDistributionsShouldMatchEnumeration() {
+    DiceGroup diceGroup = new DiceGroup.Builder(2, d4).add(2, d6).build();
+    double[] highest = new double[13];
+    double[] lowest = new double[13];
+    double p = 1.0 / (4 * 4 * 6 * 6);
+    for (int a = 1; a <= 4; a++) {
+      for (int b = 1; b <= 4; b++) {
+        for (int c = 1; c <= 6; c++) {
+          for (int d = 1; d <= 6; d++) {
+            int[] values = { a, b, c, d };
+            Arrays.sort(values);
+            highest[values[2] + values[3]] += p;
+            lowest[values[0] + values[1]] += p;
+          }
+        }
+      }
+    }
+    Distribution keepHighest = diceGroup.keepHighestDistribution(2);
+    Distribution keepLowest = diceGroup.keepLowestDistribution(2);
+    for (int value = 0; value < highest.length; value++) {
+      assertEquals(highest[value], keepHighest.probability(value), 1e-12);
+      assertEquals(lowest[value], keepLowest.probability(value), 1e-12);
+    }
+  }
+
+  @Test
+  public void batchRollsShouldMatchSuccessiveSums() {
+    DiceGroup[] groups = {
+      DiceGroup.of(4, d6),
+      new DiceGroup.Builder(1, d6).add(2, d8).build(),
+      DiceGroup.of(2000, d4)
+    };
+    for (DiceGroup group : groups) {
+      RandomSource expected = RandomSource.of(1L);
+      RandomSource actual = RandomSource.of(1L);
+      IntBuffer sums = IntBuffer.allocate(3000);
+      sums.put(-1);
+      group.rollBatch(2999, sums, actual);
+      assertFalse(sums.hasRemaining());
+      assertEquals(-1, sums.get(0));
+      for (int i = 1; i < 3000; i++) {
+        assertEquals(group.sum(expected), sums.get(i));
+      }
+    }
+  }
+
+  @Test
+  public void aBatchShouldFitInTheBuffer() {
+    DiceGroup group = DiceGroup.of(4, d6);
+    assertThrows(BufferOverflowException.class, () -> group.rollBatch(11, IntBuffer.allocate(10)));
+    assertThrows(IllegalArgumentException.class, () -> group.rollBatch(-1, IntBuffer.allocate(10)));
+  }
+
+  @Test
+  public void tooLargeGroupsShouldBeRejectedForExactDistributions() {
+    assertThrows(IllegalArgumentException.class, () -> DiceGroup.of(1000, d20).keepHighestDistribution(500));
+  }
+
+  @Test
+  public void onlySharedGroupsShouldBeMemoized() {
+    assertSame(DiceGroup.of(4, d6).keepHighestDistribution(3), DiceGroup.of(4, d6).keepHighestDistribution(3));
+    DiceGroup mixed = new DiceGroup.Builder(2, d6).add(1, d8).build();
+    assertNotSame(mixed.sumDistribution(), mixed.sumDistribution());
+    assertEquals(mixed.sumDistribution().probability(10), mixed.sumDistribution().probability(10));
   }
-}
\ No newline at end of file
+}
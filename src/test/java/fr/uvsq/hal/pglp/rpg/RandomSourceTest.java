@@ -0,0 +1,104 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static fr.uvsq.hal.pglp.rpg.Dice.d20;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RandomSourceTest {
+  private static int[] rolls(RandomSource randomSource, int count) {
+    int[] values = new int[count];
+    for (int i = 0; i < count; i++) {
+      values[i] = d20.roll(randomSource);
+    }
+    return values;
+  }
+
+  @Test
+  public void batchRollsShouldMatchSuccessiveRolls() {
+    for (RandomSource[] sources : new RandomSource[][] {
+      { RandomSource.of(42L), RandomSource.of(42L) },
+      { RandomSource.threadLocal(42L), RandomSource.threadLocal(42L) } }) {
+      int[] values = new int[1000];
+      d20.roll(1000, values, sources[1]);
+      assertArrayEquals(rolls(sources[0], 1000), values);
+    }
+    assertThrows(IndexOutOfBoundsException.class, () -> d20.roll(11, new int[10]));
+  }
+
+  @Test
+  public void theDefaultSourceShouldHaveOneGeneratorPerThread() throws Exception {
+    Dice.setSeed(42L);
+    assertArrayEquals(rolls(RandomSource.of(42L), 100), rolls(Dice.getRandomSource(), 100));
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      int[] workerValues = executor.submit(() -> rolls(Dice.getRandomSource(), 100)).get();
+      assertFalse(Arrays.equals(rolls(RandomSource.of(42L), 100), workerValues));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void aSeededSourceShouldBeReproducible() {
+    assertArrayEquals(rolls(RandomSource.of(42L), 100), rolls(RandomSource.of(42L), 100));
+  }
+
+  @Test
+  public void splitSourcesShouldBeReproducibleAndIndependent() {
+    RandomSource first = RandomSource.of(42L);
+    RandomSource second = RandomSource.of(42L);
+    int[] firstChild = rolls(first.split(), 100);
+    assertArrayEquals(firstChild, rolls(second.split(), 100));
+    assertFalse(Arrays.equals(firstChild, rolls(first.split(), 100)));
+  }
+
+  @Test
+  public void aCharacterShouldUseItsOwnSource() {
+    RandomSource frodonSource = RandomSource.of(42L);
+    RandomSource samSource = RandomSource.of(42L);
+    Character frodon = new CharacterBuilder("Frodon", Ability.values(), frodonSource)
+      .setRandomSource(frodonSource)
+      .build();
+    Character sam = new CharacterBuilder("Sam", Ability.values(), samSource)
+      .setRandomSource(samSource)
+      .build();
+    for (Ability ability : Ability.values()) {
+      assertEquals(frodon.get(ability), sam.get(ability));
+    }
+    Dice.setSeed(1L);
+    for (int i = 0; i < 100; i++) {
+      assertEquals(
+        frodon.checks(Skill.Stealth, DifficultyClass.Medium),
+        sam.checks(Skill.Stealth, DifficultyClass.Medium));
+    }
+  }
+
+  @Test
+  public void aThreadLocalSourceShouldBeUsableFromSeveralThreads() throws Exception {
+    RandomSource randomSource = RandomSource.threadLocal(42L);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<int[]>> results = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        results.add(executor.submit(() -> rolls(randomSource, 10_000)));
+      }
+      for (Future<int[]> result : results) {
+        for (int value : result.get()) {
+          assertTrue(value >= 1 && value <= 20);
+        }
+      }
+    } finally {
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+  }
+}
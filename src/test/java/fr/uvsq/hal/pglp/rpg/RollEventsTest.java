@@ -0,0 +1,121 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static fr.uvsq.hal.pglp.rpg.Ability.Strength;
+import static fr.uvsq.hal.pglp.rpg.DifficultyClass.Medium;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollEventsTest {
+  private Character frodon;
+
+  @BeforeEach
+  public void setup() {
+    Dice.setSeed(1L);
+    frodon = new CharacterBuilder("Frodon")
+      .nonRamdomAbilities(Ability.values())
+      .build();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    RollEvents.disable();
+  }
+
+  @Test
+  public void aRingBufferShouldRecordRollsAndChecks() {
+    RingBufferRollEventSink sink = new RingBufferRollEventSink(16);
+    RollEvents.setSink(sink);
+    boolean success = frodon.checks(Strength, Medium, Character.Advantage.Advantage);
+
+    List<RollEvent> events = sink.snapshot();
+    assertEquals(3, events.size());
+    RollEvent first = events.get(0);
+    RollEvent second = events.get(1);
+    RollEvent check = events.get(2);
+    assertEquals(RollEvent.Type.Roll, first.type());
+    assertEquals(Dice.d20, first.dice());
+    assertEquals(RollEvent.Type.Check, check.type());
+    assertEquals(Math.max(first.value(), second.value()), check.value());
+    assertEquals(frodon.get(Strength).getModifier(), check.modifier());
+    assertEquals(Medium, check.difficultyClass());
+    assertEquals(Character.Advantage.Advantage, check.advantage());
+    assertEquals(success, check.success());
+  }
+
+  @Test
+  public void aRingBufferShouldKeepTheLatestEvents() {
+    RingBufferRollEventSink sink = new RingBufferRollEventSink(3);
+    assertEquals(4, sink.getCapacity());
+    RollEvents.setSink(sink);
+    for (int i = 0; i < 10; i++) {
+      Dice.d6.roll();
+    }
+    assertEquals(10, sink.getCount());
+    assertEquals(4, sink.snapshot().size());
+  }
+
+  @Test
+  public void aRingBufferSnapshotShouldBeSafeDuringConcurrentWrites() throws Exception {
+    RingBufferRollEventSink sink = new RingBufferRollEventSink(8);
+    Thread[] writers = new Thread[4];
+    for (int t = 0; t < writers.length; t++) {
+      writers[t] = new Thread(() -> {
+        for (int i = 0; i < 100_000; i++) {
+          sink.onRoll(Dice.d6, 3);
+          sink.onCheck(10, 2, Medium, Character.Advantage.None, true);
+        }
+      });
+      writers[t].start();
+    }
+    while (writers[0].isAlive()) {
+      for (RollEvent event : sink.snapshot()) {
+        if (event.type() == RollEvent.Type.Check) {
+          assertEquals(Medium, event.difficultyClass());
+        } else {
+          assertNull(event.difficultyClass());
+        }
+      }
+    }
+    for (Thread writer : writers) {
+      writer.join();
+    }
+    assertEquals(800_000, sink.getCount());
+  }
+
+  @Test
+  public void aRingBufferCapacityShouldBeBounded() {
+    assertThrows(IllegalArgumentException.class, () -> new RingBufferRollEventSink(0));
+    assertThrows(IllegalArgumentException.class,
+      () -> new RingBufferRollEventSink(RingBufferRollEventSink.MAX_CAPACITY + 1));
+  }
+
+  @Test
+  public void anAsyncSinkShouldDeliverAllEventsInBatches() {
+    List<RollEvent> received = Collections.synchronizedList(new ArrayList<>());
+    try (AsyncRollEventSink sink = new AsyncRollEventSink(received::addAll, 8, 1024)) {
+      RollEvents.setSink(sink);
+      for (int i = 0; i < 100; i++) {
+        frodon.checks(Strength, Medium);
+      }
+      RollEvents.disable();
+    }
+    assertEquals(200, received.size());
+    assertEquals(100, received.stream().filter(e -> e.type() == RollEvent.Type.Check).count());
+  }
+
+  @Test
+  public void noEventShouldBeRecordedWhenDisabled() {
+    RingBufferRollEventSink sink = new RingBufferRollEventSink(16);
+    RollEvents.setSink(sink);
+    RollEvents.disable();
+    frodon.checks(Strength, Medium);
+    assertEquals(0, sink.getCount());
+  }
+}
@@ -0,0 +1,144 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static fr.uvsq.hal.pglp.rpg.DifficultyClass.*;
+import static fr.uvsq.hal.pglp.rpg.Skill.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RollJournalTest {
+  @TempDir
+  Path directory;
+
+  @AfterEach
+  public void tearDown() {
+    RollEvents.disable();
+  }
+
+  private static void session(int checks) {
+    Character frodon = new CharacterBuilder("Frodon", Ability.values()).isProficientIn(Stealth).build();
+    for (int i = 0; i < checks; i++) {
+      frodon.checks(Stealth, Medium, Character.Advantage.values()[i % 3]);
+    }
+  }
+
+  @Test
+  public void aJournalShouldRecordRollsAndChecks() throws IOException {
+    Path path = directory.resolve("session.journal");
+    RingBufferRollEventSink ring = new RingBufferRollEventSink(4096);
+    try (RollJournal journal = new RollJournal(path, 42L).start()) {
+      session(10);
+      assertTrue(journal.getEventCount() > 10);
+    }
+    Dice.setSeed(42L);
+    RollEvents.setSink(ring);
+    session(10);
+    RollEvents.disable();
+
+    List<RollEvent> events = new ArrayList<>();
+    try (RollJournalReader reader = new RollJournalReader(path)) {
+      assertEquals(42L, reader.getSeed());
+      reader.forEachRemaining(events::add);
+    }
+    assertEquals(ring.snapshot(), events);
+  }
+
+  @Test
+  public void aSessionShouldBeReplayed() throws IOException {
+    Path path = directory.resolve("session.journal");
+    try (RollJournal journal = new RollJournal(path, 7L, 32).start()) {
+      session(1000);
+      assertTrue(journal.getEventCount() > 1000);
+    }
+    try (RollJournalReader reader = new RollJournalReader(path)) {
+      RollJournalReader.ReplayResult result = reader.replay(() -> session(1000));
+      assertTrue(result.isIdentical());
+    }
+    try (RollJournalReader reader = new RollJournalReader(path)) {
+      RollJournalReader.ReplayResult result = reader.replay(() -> session(999));
+      assertFalse(result.isIdentical());
+      assertNull(result.actual());
+    }
+    try (RollJournalReader reader = new RollJournalReader(path)) {
+      RollJournalReader.ReplayResult result = reader.replay(() -> {
+        Dice.setSeed(8L);
+        session(1000);
+      });
+      assertFalse(result.isIdentical());
+      assertNotNull(result.actual());
+    }
+  }
+
+  @Test
+  public void anInvalidJournalShouldBeRejected() throws IOException {
+    Path path = directory.resolve("invalid.journal");
+    Files.write(path, new byte[] { 1, 2, 3 });
+    assertThrows(IllegalArgumentException.class, () -> new RollJournalReader(path));
+  }
+
+  @Test
+  public void theDefaultSourceShouldBeRestored() throws IOException {
+    Path path = directory.resolve("session.journal");
+    RandomSource previous = Dice.getRandomSource();
+    try (RollJournal journal = new RollJournal(path, 3L).start()) {
+      assertNotSame(previous, Dice.getRandomSource());
+      session(10);
+      assertTrue(journal.getEventCount() > 10);
+    }
+    assertSame(previous, Dice.getRandomSource());
+    try (RollJournalReader reader = new RollJournalReader(path)) {
+      assertTrue(reader.replay(() -> session(10)).isIdentical());
+    }
+    assertSame(previous, Dice.getRandomSource());
+  }
+
+  @Test
+  public void thePreviousSinkShouldBeRestored() throws IOException {
+    RingBufferRollEventSink ring = new RingBufferRollEventSink(16);
+    RollEvents.setSink(ring);
+    try (RollJournal journal = new RollJournal(directory.resolve("session.journal"), 3L).start()) {
+      assertSame(journal, RollEvents.getSink());
+      session(1);
+    }
+    assertSame(ring, RollEvents.getSink());
+    assertTrue(ring.snapshot().isEmpty());
+  }
+
+  @Test
+  public void anUnrecordableEventShouldBeRejected() throws IOException {
+    try (RollJournal journal = new RollJournal(directory.resolve("session.journal"), 1L)) {
+      assertThrows(IllegalArgumentException.class,
+        () -> journal.onCheck(10, 200, Medium, Character.Advantage.None, true));
+      assertThrows(IllegalArgumentException.class, () -> journal.onRoll(Dice.d20, 128));
+      assertEquals(0, journal.getEventCount());
+    }
+  }
+
+  @Test
+  public void anInvalidRecordShouldBeRejected() throws IOException {
+    Path path = directory.resolve("session.journal");
+    try (RollJournal journal = new RollJournal(path, 1L)) {
+      journal.onRoll(Dice.d6, 4);
+    }
+    byte[] bytes = Files.readAllBytes(path);
+    bytes[RollJournal.HEADER_SIZE + 1] = 2;
+    Files.write(path, bytes);
+    try (RollJournalReader reader = new RollJournalReader(path)) {
+      assertThrows(IllegalStateException.class, reader::next);
+    }
+    bytes[RollJournal.HEADER_SIZE + 1] = RollJournal.ROLL;
+    bytes[RollJournal.HEADER_SIZE] = RollJournal.CHECK_SIZE;
+    Files.write(path, bytes);
+    try (RollJournalReader reader = new RollJournalReader(path)) {
+      assertThrows(IllegalStateException.class, reader::next);
+    }
+  }
+}
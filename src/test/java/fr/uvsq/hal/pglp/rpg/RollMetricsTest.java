@@ -0,0 +1,124 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+
+import static fr.uvsq.hal.pglp.rpg.Dice.*;
+import static fr.uvsq.hal.pglp.rpg.DifficultyClass.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RollMetricsTest {
+  @BeforeEach
+  public void setup() {
+    RollMetrics.reset();
+    RollMetrics.setEnabled(true);
+  }
+
+  @AfterEach
+  public void teardown() {
+    RollMetrics.setEnabled(false);
+    RollMetrics.reset();
+  }
+
+  @Test
+  public void rollsShouldBeCountedByDiceType() {
+    RandomSource source = RandomSource.of(1L);
+    for (int i = 0; i < 10; i++) {
+      d6.roll(source);
+    }
+    DiceGroup.of(4, d6).keepHighest(3, source);
+    RollMetrics.Snapshot snapshot = RollMetrics.snapshot();
+    assertEquals(14, snapshot.getRolls(d6));
+    assertEquals(0, snapshot.getRolls(d20));
+    assertEquals(1, snapshot.getGroupRolls());
+    assertEquals(1, snapshot.getGroupRollLatency().getCount());
+  }
+
+  @Test
+  public void checksShouldBeCountedByDifficultyAndAdvantage() {
+    Character frodon = new CharacterBuilder("Frodon").nonRamdomAbilities(Ability.values()).build();
+    RollMetrics.reset();
+    int successes = 0;
+    for (int i = 0; i < 100; i++) {
+      if (frodon.checks(Ability.Strength, Medium, Character.Advantage.Advantage)) {
+        successes++;
+      }
+    }
+    RollMetrics.Snapshot snapshot = RollMetrics.snapshot();
+    assertEquals(100, snapshot.getChecks(Medium, Character.Advantage.Advantage));
+    assertEquals(successes, snapshot.getSuccesses(Medium, Character.Advantage.Advantage));
+    assertEquals(0, snapshot.getChecks(Medium, Character.Advantage.None));
+    assertEquals(100, snapshot.getChecks());
+    assertEquals(100, snapshot.getCheckLatency().getCount());
+    assertEquals(100, snapshot.getGroupRolls());
+  }
+
+  @Test
+  public void generationsShouldBeMeasured() {
+    new CharacterGenerator(1L).generate(10);
+    RollMetrics.Snapshot snapshot = RollMetrics.snapshot();
+    assertEquals(10, snapshot.getGenerations());
+    assertTrue(snapshot.getGenerationLatency().getMax() > 0);
+  }
+
+  @Test
+  public void nothingShouldBeMeasuredWhenDisabled() {
+    RollMetrics.setEnabled(false);
+    d6.roll();
+    DiceGroup.of(2, d20).max();
+    RollMetrics.Snapshot snapshot = RollMetrics.snapshot();
+    assertEquals(0, snapshot.getRolls(d6));
+    assertEquals(0, snapshot.getGroupRolls());
+  }
+
+  @Test
+  public void percentilesShouldBoundRecordedLatencies() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long nanos = 1; nanos <= 1000; nanos++) {
+      histogram.record(nanos);
+    }
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(1000, snapshot.getCount());
+    assertEquals(500.5, snapshot.getMean(), 1e-9);
+    assertEquals(1000, snapshot.getMax());
+    assertEquals(511, snapshot.getPercentile(0.5));
+    assertEquals(103, snapshot.getPercentile(0.1));
+    assertEquals(991, snapshot.getPercentile(0.99));
+    assertEquals(1000, snapshot.getPercentile(1.0));
+  }
+
+  @Test
+  public void bucketsShouldBoundTheRelativeError() {
+    assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBoundOf(LatencyHistogram.BUCKETS - 1));
+    for (long nanos : new long[] { 0, 1, 15, 16, 17, 100, 1000, 123_456_789L, 1L << 40, (1L << 40) - 1 }) {
+      int bucket = LatencyHistogram.bucketOf(nanos);
+      long upper = LatencyHistogram.upperBoundOf(bucket);
+      assertTrue(nanos <= upper);
+      assertTrue(upper - nanos <= nanos / LatencyHistogram.SUB_BUCKETS);
+      assertTrue(bucket == 0 || LatencyHistogram.upperBoundOf(bucket - 1) < nanos);
+    }
+  }
+
+  @Test
+  public void metricsShouldBeExposedThroughJmx() throws Exception {
+    ObjectName name = RollMetrics.register();
+    try {
+      d4.roll();
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      assertEquals(true, server.getAttribute(name, "Enabled"));
+      TabularData rolls = (TabularData) server.getAttribute(name, "DiceRolls");
+      assertEquals(1L, rolls.get(new Object[] {"d4"}).get("value"));
+      server.invoke(name, "reset", null, null);
+      assertEquals(0, RollMetrics.snapshot().getRolls(d4));
+    } finally {
+      RollMetrics.unregister();
+    }
+  }
+}
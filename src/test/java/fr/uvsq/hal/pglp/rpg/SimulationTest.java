@@ -0,0 +1,100 @@
+package fr.uvsq.hal.pglp.rpg;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static fr.uvsq.hal.pglp.rpg.DifficultyClass.*;
+import static fr.uvsq.hal.pglp.rpg.Skill.Acrobatics;
+import static fr.uvsq.hal.pglp.rpg.Skill.Athletics;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulationTest {
+  private static Simulation simulation(long seed) {
+    return new Simulation(seed)
+      .setAbilitiesOrder(Ability.values())
+      .isProficientIn(Athletics)
+      .addCheck(Simulation.Check.of(Athletics, Medium, Character.Advantage.None))
+      .addCheck(Simulation.Check.of(Acrobatics, Hard, Character.Advantage.Advantage))
+      .addCheck(Simulation.Check.of(Ability.Wisdom, Easy, Character.Advantage.Disadvantage));
+  }
+
+  @Test
+  public void aSimulationShouldBeReproducibleWhateverThePool() {
+    Simulation.Result first = simulation(1L).run(100_000);
+    Simulation.Result second = simulation(1L).setPool(new ForkJoinPool(1)).run(100_000);
+    assertEquals(100_000, first.getTrials());
+    for (int i = 0; i < first.getChecks().size(); i++) {
+      assertEquals(first.getSuccesses(i), second.getSuccesses(i));
+      assertArrayEquals(first.getTotalHistogram(i), second.getTotalHistogram(i));
+    }
+  }
+
+  @Test
+  public void successRatesShouldMatchTheoreticalProbabilities() {
+    Simulation.Result result = simulation(2L).run(200_000);
+    for (int i = 0; i < result.getChecks().size(); i++) {
+      Simulation.Check check = result.getChecks().get(i);
+      int bonus = check.skill() == Athletics ? CharacterBuilder.FIRST_LEVEL_PROFICIENCY_BONUS : 0;
+      long[] scores = result.getScoreHistogram(check.ability());
+      assertEquals(result.getTrials(), Arrays.stream(scores).sum());
+      double expected = 0.0;
+      for (int score = AbilityScore.MIN_SCORE; score <= AbilityScore.MAX_SCORE; score++) {
+        int modifier = AbilityScore.of(score).getModifier() + bonus;
+        expected += (double) scores[score] / result.getTrials()
+          * Character.successProbability(modifier, check.difficultyClass(), check.advantage());
+      }
+      assertEquals(expected, result.getSuccessRate(i), 2 * result.getHalfWidth(i));
+      assertEquals(result.getTrials(), Arrays.stream(result.getTotalHistogram(i)).sum());
+    }
+  }
+
+  @Test
+  public void aSimulationShouldStopWhenPreciseEnough() {
+    List<Long> progress = new ArrayList<>();
+    Simulation.Result result = simulation(3L)
+      .setTargetHalfWidth(0.01)
+      .setProgressListener(progress::add)
+      .run(100_000_000L);
+    assertTrue(result.getTrials() < 100_000_000L);
+    for (int i = 0; i < result.getChecks().size(); i++) {
+      assertTrue(result.getHalfWidth(i) <= 0.01);
+    }
+    assertFalse(progress.isEmpty());
+    assertEquals(result.getTrials(), progress.get(progress.size() - 1));
+  }
+
+  @Test
+  public void theWilsonIntervalShouldNotCollapseOnExtremeRates() {
+    Simulation.Result result = new Simulation(4L)
+      .addCheck(Simulation.Check.of(Ability.Wisdom, NearlyImpossible, Character.Advantage.Disadvantage))
+      .addCheck(Simulation.Check.of(Athletics, Medium, Character.Advantage.None))
+      .run(1000);
+    assertEquals(0, result.getSuccesses(0));
+    assertTrue(result.getHalfWidth(0) > 0);
+    assertEquals(0.0, result.getLowerBound(0), 1e-12);
+    assertTrue(result.getUpperBound(0) > 0);
+    assertTrue(result.getLowerBound(1) <= result.getSuccessRate(1));
+    assertTrue(result.getSuccessRate(1) <= result.getUpperBound(1));
+    assertEquals(2 * result.getHalfWidth(1), result.getUpperBound(1) - result.getLowerBound(1), 1e-12);
+  }
+
+  @Test
+  public void anInvalidAbilitiesOrderShouldBeRejected() {
+    Simulation simulation = new Simulation(1L);
+    Ability[] duplicated = Ability.values();
+    duplicated[1] = duplicated[0];
+    assertThrows(IllegalArgumentException.class, () -> simulation.setAbilitiesOrder(duplicated));
+    assertThrows(IllegalArgumentException.class, () -> simulation.setAbilitiesOrder(new Ability[] { Ability.Wisdom }));
+    assertThrows(NullPointerException.class, () -> simulation.setAbilitiesOrder(null));
+  }
+
+  @Test
+  public void aSimulationRequiresChecksAndTrials() {
+    assertThrows(IllegalStateException.class, () -> new Simulation(1L).run(10));
+    assertThrows(IllegalArgumentException.class, () -> simulation(1L).run(0));
+  }
+}
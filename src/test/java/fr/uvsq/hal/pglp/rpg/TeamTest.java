@@ -1,12 +1,146 @@
 package fr.uvsq.hal.pglp.rpg;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-import static org.junit.jupiter.api.Assertions.fail;
+import java.util.ArrayList;
+import java.util.List;
+
+import static fr.uvsq.hal.pglp.rpg.Ability.*;
+import static fr.uvsq.hal.pglp.rpg.DifficultyClass.*;
+import static fr.uvsq.hal.pglp.rpg.Skill.*;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class TeamTest {
+  private Character frodon;
+  private Character sam;
+  private Character gandalf;
+  private Team hobbits;
+  private Team fellowship;
+
+  @BeforeEach
+  public void setup() {
+    Dice.setSeed(1L);
+    frodon = new CharacterBuilder("Frodon")
+      .nonRamdomAbilities(new Ability[] { Dexterity, Wisdom, Charisma, Constitution, Intelligence, Strength })
+      .isProficientIn(Stealth)
+      .build();
+    sam = new CharacterBuilder("Sam")
+      .nonRamdomAbilities(new Ability[] { Constitution, Strength, Wisdom, Dexterity, Charisma, Intelligence })
+      .isProficientIn(Athletics, Perception)
+      .build();
+    gandalf = new CharacterBuilder("Gandalf")
+      .nonRamdomAbilities(new Ability[] { Intelligence, Wisdom, Charisma, Constitution, Dexterity, Strength })
+      .setProficiencyBonus(6)
+      .isProficientIn(Arcana, Perception)
+      .build();
+    hobbits = new Team("Hobbits").add(frodon).add(sam);
+    fellowship = new Team("Fellowship").add(gandalf).add(hobbits);
+  }
+
+  @Test
+  public void aTeamShouldCountItsCharactersRecursively() {
+    assertEquals(2, hobbits.getSize());
+    assertEquals(3, fellowship.getSize());
+    assertEquals(0, new Team("Empty").getSize());
+  }
+
+  @Test
+  public void aTeamShouldIterateOverItsHierarchy() {
+    List<Character> members = new ArrayList<>();
+    fellowship.forEach(members::add);
+    assertEquals(List.of(gandalf, frodon, sam), members);
+    assertFalse(new Team("Empty").add(new Team("Empty too")).iterator().hasNext());
+  }
+
+  @Test
+  public void aTeamShouldNotContainItself() {
+    assertThrows(IllegalArgumentException.class, () -> fellowship.add(fellowship));
+    assertThrows(IllegalArgumentException.class, () -> hobbits.add(fellowship));
+    assertTrue(fellowship.contains(hobbits));
+    assertFalse(hobbits.contains(fellowship));
+  }
+
+  @Test
+  public void aTeamShouldFindItsBestMember() {
+    assertSame(gandalf, fellowship.getBest(Perception));
+    assertSame(frodon, fellowship.getBest(Stealth));
+    assertEquals(10 + gandalf.getProficiencyBonusIn(Perception), fellowship.getPassiveMaximum(Perception));
+    assertThrows(IllegalStateException.class, () -> new Team("Empty").getPassiveMaximum(Perception));
+  }
+
+  @Test
+  public void aGroupCheckShouldSucceedWhenHalfTheMembersSucceed() {
+    assertTrue(fellowship.groupChecks(Perception, VeryEasy));
+    assertFalse(fellowship.groupChecks(Arcana, NearlyImpossible, Character.Advantage.Disadvantage));
+    assertFalse(new Team("Empty").groupChecks(Perception, VeryEasy));
+
+    RandomSource source = RandomSource.of(1L);
+    int successes = fellowship.countSuccesses(Stealth, Medium, Character.Advantage.None, source);
+    source = RandomSource.of(1L);
+    int expected = 0;
+    for (Character character : fellowship) {
+      int rolled = Dice.d20.roll(source);
+      if (rolled + character.getProficiencyBonusIn(Stealth) >= Medium.getDifficultyClass()) {
+        expected++;
+      }
+    }
+    assertEquals(expected, successes);
+  }
+
+  @Test
+  public void aGroupCheckShouldUseTheOwnSourceOfEachMember() {
+    Team team = new Team("Seeded");
+    for (Character character : fellowship) {
+      team.add(new CharacterBuilder(character.getName())
+        .nonRamdomAbilities(new Ability[] { Strength, Dexterity, Constitution, Intelligence, Wisdom, Charisma })
+        .setRandomSource(RandomSource.of(character.getName().hashCode()))
+        .build());
+    }
+    int successes = team.countSuccesses(Strength, Medium, Character.Advantage.None);
+    int expected = 0;
+    for (Character character : team) {
+      RandomSource source = RandomSource.of(character.getName().hashCode());
+      if (Dice.d20.roll(source) + character.get(Strength).getModifier() >= Medium.getDifficultyClass()) {
+        expected++;
+      }
+    }
+    assertEquals(expected, successes);
+  }
+
+  @Test
+  public void anAbilityGroupCheckShouldAcceptASource() {
+    int successes = fellowship.countSuccesses(Wisdom, Medium, Character.Advantage.None, RandomSource.of(1L));
+    RandomSource source = RandomSource.of(1L);
+    int expected = 0;
+    for (Character character : fellowship) {
+      if (Dice.d20.roll(source) + character.get(Wisdom).getModifier() >= Medium.getDifficultyClass()) {
+        expected++;
+      }
+    }
+    assertEquals(expected, successes);
+    assertEquals(2 * expected >= fellowship.getSize(),
+      fellowship.groupChecks(Wisdom, Medium, Character.Advantage.None, RandomSource.of(1L)));
+  }
+
+  @Test
+  public void aLargeTeamShouldBeResolvedDeterministically() {
+    Team army = new Team("Army");
+    new CharacterGenerator(1L).generate(3 * Team.PARALLEL_THRESHOLD + 1).forEach(army::add);
+    int first = army.countSuccesses(Athletics, Medium, Character.Advantage.None, RandomSource.of(1L));
+    int second = army.countSuccesses(Athletics, Medium, Character.Advantage.None, RandomSource.of(1L));
+    assertEquals(first, second);
+    assertTrue(first > 0 && first < army.getSize());
+  }
+
   @Test
-  public void aTeamShouldWhen() {
-    fail("Not implemented");
+  public void helpShouldGiveAnAdvantageToTheBestMember() {
+    for (DifficultyClass difficultyClass : DifficultyClass.values()) {
+      boolean success = fellowship.helpChecks(Arcana, difficultyClass, RandomSource.of(1L));
+      RandomSource source = RandomSource.of(1L);
+      int rolled = Math.max(Dice.d20.roll(source), Dice.d20.roll(source));
+      assertEquals(rolled + gandalf.getProficiencyBonusIn(Arcana) >= difficultyClass.getDifficultyClass(), success);
+    }
+    assertThrows(IllegalStateException.class, () -> new Team("Empty").helpChecks(Arcana, Hard));
   }
 }
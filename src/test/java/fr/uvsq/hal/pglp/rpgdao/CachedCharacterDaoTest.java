@@ -0,0 +1,173 @@
+package fr.uvsq.hal.pglp.rpgdao;
+
+import fr.uvsq.hal.pglp.rpg.Character;
+import fr.uvsq.hal.pglp.rpg.CharacterBuilder;
+import fr.uvsq.hal.pglp.rpg.CharacterGenerator;
+import fr.uvsq.hal.pglp.rpg.RandomSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static fr.uvsq.hal.pglp.rpgdao.CharacterAssertions.assertSameCharacter;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachedCharacterDaoTest {
+  private CountingDao dao;
+  private AtomicLong clock;
+  private CachedCharacterDao cache;
+  private List<Character> characters;
+
+  /** DAO en mémoire comptant les lectures. */
+  private static class CountingDao implements Dao<Character> {
+    private final Map<String, Character> characters = new HashMap<>();
+    private int reads;
+
+    @Override
+    public void create(Character character) {
+      characters.put(character.getName(), character);
+    }
+
+    @Override
+    public Optional<Character> read(String id) {
+      reads++;
+      return Optional.ofNullable(characters.get(id));
+    }
+
+    @Override
+    public boolean update(Character character) {
+      return characters.replace(character.getName(), character) != null;
+    }
+
+    @Override
+    public boolean delete(String id) {
+      return characters.remove(id) != null;
+    }
+
+    @Override
+    public List<Character> findAll() {
+      return new ArrayList<>(characters.values());
+    }
+  }
+
+  @BeforeEach
+  public void setup() {
+    dao = new CountingDao();
+    clock = new AtomicLong();
+    cache = new CachedCharacterDao(dao, 2, Duration.ofSeconds(10), clock::get);
+    characters = new CharacterGenerator(1L).generate(3);
+    dao.createAll(characters);
+  }
+
+  @Test
+  public void readsShouldGoThroughTheCache() {
+    String name = characters.get(0).getName();
+    assertSame(characters.get(0), cache.read(name).orElseThrow());
+    assertSame(characters.get(0), cache.read(name).orElseThrow());
+    assertEquals(1, dao.reads);
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertEquals(0.5, cache.getHitRate());
+    assertTrue(cache.read("Unknown").isEmpty());
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void theLeastRecentlyUsedCharacterShouldBeEvicted() {
+    cache.read(characters.get(0).getName());
+    cache.read(characters.get(1).getName());
+    cache.read(characters.get(0).getName());
+    cache.read(characters.get(2).getName());
+    assertEquals(2, cache.size());
+    assertEquals(1, cache.getEvictions());
+    cache.read(characters.get(0).getName());
+    assertEquals(3, dao.reads);
+    cache.read(characters.get(1).getName());
+    assertEquals(4, dao.reads);
+  }
+
+  @Test
+  public void expiredEntriesShouldBeReloaded() {
+    String name = characters.get(0).getName();
+    cache.read(name);
+    clock.addAndGet(Duration.ofSeconds(9).toNanos());
+    cache.read(name);
+    assertEquals(1, dao.reads);
+    clock.addAndGet(Duration.ofSeconds(1).toNanos());
+    cache.read(name);
+    assertEquals(2, dao.reads);
+    assertEquals(1, cache.getEvictions());
+  }
+
+  @Test
+  public void writesShouldGoThroughTheCache() {
+    Character character = new CharacterGenerator(2L).generate(1).get(0);
+    cache.create(character);
+    assertSame(character, dao.characters.get(character.getName()));
+    assertSameCharacter(character, cache.read(character.getName()).orElseThrow());
+    assertEquals(0, dao.reads);
+    assertTrue(cache.delete(character.getName()));
+    assertTrue(cache.read(character.getName()).isEmpty());
+    assertFalse(cache.update(character));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void writesShouldCacheACopyWithoutRandomSource() {
+    Character character = new CharacterBuilder("Random").setRandomSource(RandomSource.of(1L)).build();
+    cache.create(character);
+    Character cached = cache.read(character.getName()).orElseThrow();
+    assertNotSame(character, cached);
+    assertSameCharacter(character, cached);
+    assertSame(cached, cache.read(character.getName()).orElseThrow());
+    assertEquals(0, dao.reads);
+  }
+
+  @Test
+  public void anUpdateShouldInvalidateTheEntry() {
+    Character character = characters.get(0);
+    cache.read(character.getName());
+    assertTrue(cache.update(character));
+    assertEquals(0, cache.size());
+    cache.read(character.getName());
+    assertEquals(2, dao.reads);
+  }
+
+  @Test
+  public void anEntryInvalidatedDuringALoadShouldNotBeCached() {
+    Character character = characters.get(0);
+    CachedCharacterDao[] racing = new CachedCharacterDao[1];
+    CountingDao slowDao = new CountingDao() {
+      @Override
+      public Optional<Character> read(String id) {
+        Optional<Character> loaded = super.read(id);
+        racing[0].delete(id);
+        return loaded;
+      }
+    };
+    slowDao.create(character);
+    racing[0] = new CachedCharacterDao(slowDao, 2);
+    assertSame(character, racing[0].read(character.getName()).orElseThrow());
+    assertEquals(0, racing[0].size());
+  }
+
+  @Test
+  public void entriesShouldNotExpireWithoutTimeToLive() {
+    clock.set(Long.MIN_VALUE + 1);
+    CachedCharacterDao eternal = new CachedCharacterDao(dao, 2, null, clock::get);
+    String name = characters.get(0).getName();
+    eternal.read(name);
+    clock.set(Long.MAX_VALUE);
+    eternal.read(name);
+    assertEquals(1, dao.reads);
+    assertEquals(1, eternal.getHits());
+  }
+
+  @Test
+  public void anInvalidCacheShouldBeRejected() {
+    assertThrows(IllegalArgumentException.class, () -> new CachedCharacterDao(dao, 0));
+    assertThrows(IllegalArgumentException.class, () -> new CachedCharacterDao(dao, 1, Duration.ZERO));
+  }
+}
@@ -0,0 +1,89 @@
+package fr.uvsq.hal.pglp.rpgdao;
+
+import fr.uvsq.hal.pglp.rpg.Character;
+import fr.uvsq.hal.pglp.rpg.CharacterGenerator;
+import fr.uvsq.hal.pglp.rpg.CompactCharacter;
+import fr.uvsq.hal.pglp.rpg.Skill;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static fr.uvsq.hal.pglp.rpgdao.CharacterAssertions.assertSameCharacter;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CharacterArchiveTest {
+  @TempDir
+  Path directory;
+
+  @Test
+  public void anArchiveShouldStoreCharactersByIndex() throws IOException {
+    List<Character> characters = new CharacterGenerator(1L)
+      .isProficientIn(Skill.Stealth, Skill.Perception)
+      .setNaming(i -> "Orc n°" + i)
+      .generate(5000);
+    try (CharacterArchive archive = CharacterArchive.open(directory)) {
+      for (int i = 0; i < characters.size(); i++) {
+        assertEquals(i, archive.append(characters.get(i)));
+      }
+      assertEquals(characters.size(), archive.size());
+      assertSameCharacter(characters.get(4321), archive.get(4321));
+      assertEquals("Orc n°0", archive.getName(0));
+    }
+  }
+
+  @Test
+  public void anArchiveShouldBeReopened() throws IOException {
+    List<Character> characters = new CharacterGenerator(1L).generate(100);
+    try (CharacterArchive archive = CharacterArchive.open(directory)) {
+      characters.forEach(archive::append);
+    }
+    try (CharacterArchive archive = CharacterArchive.open(directory)) {
+      assertEquals(characters.size(), archive.size());
+      for (int i = 0; i < characters.size(); i++) {
+        CompactCharacter expected = CompactCharacter.of(characters.get(i));
+        CompactCharacter actual = archive.getCompact(i);
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getPackedAbilities(), actual.getPackedAbilities());
+        assertEquals(expected.getSkillMask(), actual.getSkillMask());
+      }
+      archive.append(characters.get(0));
+      assertEquals(characters.get(0).getName(), archive.getName(characters.size()));
+    }
+  }
+
+  @Test
+  public void anInvalidIndexShouldBeRejected() throws IOException {
+    try (CharacterArchive archive = CharacterArchive.open(directory)) {
+      assertThrows(IndexOutOfBoundsException.class, () -> archive.get(0));
+    }
+  }
+
+  @Test
+  public void anInvalidFileShouldBeRejected() throws IOException {
+    Files.write(directory.resolve(CharacterArchive.RECORDS_FILE), new byte[64]);
+    assertThrows(IllegalArgumentException.class, () -> CharacterArchive.open(directory));
+    assertEquals(64, Files.size(directory.resolve(CharacterArchive.RECORDS_FILE)));
+  }
+
+  @Test
+  public void aHeaderInconsistentWithTheFilesShouldBeRejected() throws IOException {
+    try (CharacterArchive archive = CharacterArchive.open(directory)) {
+      archive.append(new CharacterGenerator(1L).generate(1).get(0));
+    }
+    Path records = directory.resolve(CharacterArchive.RECORDS_FILE);
+    byte[] header = Arrays.copyOf(Files.readAllBytes(records), 32);
+    ByteBuffer.wrap(header).putLong(8, 1L << 40);
+    Files.write(records, header);
+    assertThrows(IllegalArgumentException.class, () -> CharacterArchive.open(directory));
+    assertEquals(32, Files.size(records));
+    Files.write(records, new byte[] { 0x52, 0x50 });
+    assertThrows(IllegalArgumentException.class, () -> CharacterArchive.open(directory));
+    assertEquals(2, Files.size(records));
+  }
+}
@@ -0,0 +1,35 @@
+package fr.uvsq.hal.pglp.rpgdao;
+
+import fr.uvsq.hal.pglp.rpg.Ability;
+import fr.uvsq.hal.pglp.rpg.Character;
+import fr.uvsq.hal.pglp.rpg.Skill;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Assertions communes aux tests de persistance des personnages.
+ *
+ * @author hal
+ * @version 2022
+ */
+final class CharacterAssertions {
+  private CharacterAssertions() {
+  }
+
+  /**
+   * Vérifie que deux personnages ont le même nom, les mêmes scores et les mêmes maîtrises.
+   *
+   * @param expected le personnage attendu
+   * @param actual le personnage obtenu
+   */
+  static void assertSameCharacter(Character expected, Character actual) {
+    assertEquals(expected.getName(), actual.getName());
+    assertEquals(expected.getProficiencyBonus(), actual.getProficiencyBonus());
+    for (Ability ability : Ability.values()) {
+      assertEquals(expected.get(ability), actual.get(ability));
+    }
+    for (Skill skill : Skill.values()) {
+      assertEquals(expected.isProficientIn(skill), actual.isProficientIn(skill));
+    }
+  }
+}
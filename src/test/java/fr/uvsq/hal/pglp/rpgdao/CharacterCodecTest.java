@@ -0,0 +1,118 @@
+package fr.uvsq.hal.pglp.rpgdao;
+
+import fr.uvsq.hal.pglp.rpg.Ability;
+import fr.uvsq.hal.pglp.rpg.Character;
+import fr.uvsq.hal.pglp.rpg.CharacterBuilder;
+import fr.uvsq.hal.pglp.rpg.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static fr.uvsq.hal.pglp.rpg.Skill.*;
+import static fr.uvsq.hal.pglp.rpgdao.CharacterAssertions.assertSameCharacter;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CharacterCodecTest {
+  private Character frodon;
+  private Character sam;
+
+  @BeforeEach
+  public void setup() {
+    frodon = new CharacterBuilder("Frodon")
+      .nonRamdomAbilities(Ability.values())
+      .setProficiencyBonus(3)
+      .isProficientIn(Acrobatics, History, Persuasion)
+      .build();
+    sam = new CharacterBuilder("Samsagace Gamgie")
+      .nonRamdomAbilities(Ability.values())
+      .isProficientIn(Athletics)
+      .build();
+  }
+
+  @Test
+  public void aCharacterShouldBeEncodedAndDecoded() {
+    byte[] bytes = CharacterCodec.encode(frodon);
+    assertEquals(1 + CharacterCodec.FIXED_SIZE + 2 + "Frodon".length(), bytes.length);
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    assertSameCharacter(frodon, CharacterCodec.decode(buffer));
+    assertFalse(buffer.hasRemaining());
+  }
+
+  @Test
+  public void severalCharactersShouldShareABuffer() {
+    ByteBuffer buffer = ByteBuffer.allocate(CharacterCodec.encodedSize(frodon) + CharacterCodec.encodedSize(sam));
+    CharacterCodec.encode(frodon, buffer);
+    CharacterCodec.encode(sam, buffer);
+    buffer.flip();
+    assertSameCharacter(frodon, CharacterCodec.decode(buffer));
+    assertSameCharacter(sam, CharacterCodec.decode(buffer));
+  }
+
+  @Test
+  public void aTeamShouldBeEncodedAndDecoded() {
+    Team fellowship = new Team("Fellowship").add(frodon).add(new Team("Hobbits").add(sam));
+    byte[] bytes = CharacterCodec.encode(fellowship);
+    assertEquals(CharacterCodec.encodedSize(fellowship), bytes.length);
+    Team team = CharacterCodec.decodeTeam(ByteBuffer.wrap(bytes));
+    assertEquals("Fellowship", team.getName());
+    assertEquals("Hobbits", team.getTeams().get(0).getName());
+    List<Character> members = new ArrayList<>();
+    team.forEach(members::add);
+    assertEquals(2, members.size());
+    assertSameCharacter(frodon, members.get(0));
+    assertSameCharacter(sam, members.get(1));
+  }
+
+  @Test
+  public void anUnknownVersionShouldBeRejected() {
+    byte[] bytes = CharacterCodec.encode(frodon);
+    bytes[0] = 42;
+    assertThrows(IllegalArgumentException.class, () -> CharacterCodec.decode(ByteBuffer.wrap(bytes)));
+  }
+
+  @Test
+  public void theEncodedSizeShouldCountUtf8Bytes() {
+    for (String name : List.of("Éowyn", "Gimli \u2694", "Bilbo \uD83D\uDC8D", "Lone \uD800 surrogate")) {
+      Character character = new CharacterBuilder(name).nonRamdomAbilities(Ability.values()).build();
+      assertEquals(CharacterCodec.encodedSize(character), CharacterCodec.encode(character).length);
+    }
+  }
+
+  @Test
+  public void aTruncatedContentShouldBeRejected() {
+    byte[] bytes = CharacterCodec.encode(new Team("Fellowship").add(frodon));
+    for (int length = 0; length < bytes.length; length++) {
+      ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+      assertThrows(IllegalArgumentException.class, () -> CharacterCodec.decodeTeam(buffer));
+    }
+    assertThrows(IllegalArgumentException.class,
+      () -> CharacterCodec.decode(ByteBuffer.wrap(CharacterCodec.encode(frodon), 0, 5)));
+  }
+
+  @Test
+  public void anInvalidCountShouldBeRejected() {
+    ByteBuffer buffer = ByteBuffer.wrap(CharacterCodec.encode(new Team("T")));
+    buffer.putInt(1 + Short.BYTES + 1, Integer.MAX_VALUE);
+    assertThrows(IllegalArgumentException.class, () -> CharacterCodec.decodeTeam(buffer.rewind()));
+    buffer.putInt(1 + Short.BYTES + 1, -1);
+    assertThrows(IllegalArgumentException.class, () -> CharacterCodec.decodeTeam(buffer.rewind()));
+  }
+
+  @Test
+  public void aTooDeepHierarchyShouldBeRejected() {
+    Team root = new Team("0");
+    Team team = root;
+    for (int depth = 1; depth < CharacterCodec.MAX_DEPTH; depth++) {
+      Team subTeam = new Team(Integer.toString(depth));
+      team.add(subTeam);
+      team = subTeam;
+    }
+    assertNotNull(CharacterCodec.decodeTeam(ByteBuffer.wrap(CharacterCodec.encode(root))));
+    team.add(new Team("Too deep"));
+    byte[] bytes = CharacterCodec.encode(root);
+    assertThrows(IllegalArgumentException.class, () -> CharacterCodec.decodeTeam(ByteBuffer.wrap(bytes)));
+  }
+}
@@ -1,12 +1,130 @@
 package fr.uvsq.hal.pglp.rpgdao;
 
+import com.zaxxer.hikari.HikariDataSource;
+import fr.uvsq.hal.pglp.rpg.Ability;
+import fr.uvsq.hal.pglp.rpg.Character;
+import fr.uvsq.hal.pglp.rpg.CharacterBuilder;
+import fr.uvsq.hal.pglp.rpg.CharacterGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-import static org.junit.jupiter.api.Assertions.fail;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static fr.uvsq.hal.pglp.rpg.Skill.*;
+import static fr.uvsq.hal.pglp.rpgdao.CharacterAssertions.assertSameCharacter;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class CharacterJdbcDaoTest {
+  private HikariDataSource dataSource;
+  private CharacterJdbcDao dao;
+  private Character frodon;
+
+  @BeforeAll
+  public static void setupDerby() {
+    System.setProperty("derby.stream.error.file", "target/derby.log");
+  }
+
+  @BeforeEach
+  public void setup() {
+    dataSource = CharacterJdbcDao.createPool("jdbc:derby:memory:rpg;create=true");
+    dao = new CharacterJdbcDao(dataSource);
+    frodon = new CharacterBuilder("Frodon")
+      .nonRamdomAbilities(Ability.values())
+      .setProficiencyBonus(3)
+      .isProficientIn(Acrobatics, History, Medicine)
+      .build();
+  }
+
+  @AfterEach
+  public void teardown() throws SQLException {
+    try (Connection connection = dataSource.getConnection();
+         Statement statement = connection.createStatement()) {
+      statement.executeUpdate("DROP TABLE characters");
+    }
+    dataSource.close();
+  }
+
+  @Test
+  public void aCharacterDaoShouldCreateAndReadACharacter() {
+    dao.create(frodon);
+    Optional<Character> character = dao.read("Frodon");
+    assertTrue(character.isPresent());
+    assertSameCharacter(frodon, character.get());
+    assertTrue(dao.read("Sam").isEmpty());
+  }
+
+  @Test
+  public void aCharacterDaoShouldRejectDuplicates() {
+    dao.create(frodon);
+    assertThrows(DaoException.class, () -> dao.create(frodon));
+    assertEquals(1, dao.count());
+  }
+
+  @Test
+  public void aCharacterDaoShouldUpdateAndDeleteACharacter() {
+    assertFalse(dao.update(frodon));
+    dao.create(frodon);
+    Character stronger = new CharacterBuilder("Frodon")
+      .nonRamdomAbilities(Ability.values())
+      .setAbility(Ability.Strength, 18)
+      .isProficientIn(Stealth)
+      .build();
+    assertTrue(dao.update(stronger));
+    assertSameCharacter(stronger, dao.read("Frodon").orElseThrow());
+    assertTrue(dao.delete("Frodon"));
+    assertFalse(dao.delete("Frodon"));
+    assertEquals(0, dao.count());
+  }
+
+  @Test
+  public void aCharacterDaoShouldCreateCharactersInBatches() {
+    List<Character> characters = new CharacterGenerator(1L)
+      .isProficientIn(Perception)
+      .generate(2 * CharacterJdbcDao.BATCH_SIZE + 1);
+    dao.createAll(characters);
+    assertEquals(characters.size(), dao.count());
+    List<Character> read = dao.findAll();
+    assertEquals(characters.size(), read.size());
+    assertSameCharacter(characters.get(1234), dao.read(characters.get(1234).getName()).orElseThrow());
+  }
+
+  @Test
+  public void aFailedBatchShouldBeRolledBack() {
+    dao.create(frodon);
+    List<Character> characters = new CharacterGenerator(1L).generate(10);
+    assertThrows(DaoException.class, () -> dao.createAll(List.of(characters.get(0), frodon)));
+    assertEquals(1, dao.count());
+  }
+
+  @Test
+  public void aTooLongNameShouldBeRejected() {
+    Character character = new CharacterBuilder("F".repeat(CharacterJdbcDao.MAX_NAME_LENGTH + 1)).build();
+    assertThrows(IllegalArgumentException.class, () -> dao.createAll(List.of(frodon, character)));
+    assertThrows(IllegalArgumentException.class, () -> dao.update(character));
+    assertEquals(0, dao.count());
+    dao.create(new CharacterBuilder("F".repeat(CharacterJdbcDao.MAX_NAME_LENGTH)).build());
+    assertEquals(1, dao.count());
+  }
+
   @Test
-  public void aCharacterDaoShouldWhen() {
-    fail("Not implemented");
+  public void aCharacterDaoShouldStreamCharacters() {
+    List<Character> characters = new CharacterGenerator(1L).generate(250);
+    dao.createAll(characters);
+    try (Stream<Character> stream = dao.stream(16)) {
+      assertEquals(characters.size(), stream.count());
+    }
+    try (Stream<Character> stream = dao.stream(16)) {
+      Character first = stream.findFirst().orElseThrow();
+      assertSameCharacter(dao.read(first.getName()).orElseThrow(), first);
+      assertEquals(1, dataSource.getHikariPoolMXBean().getActiveConnections());
+    }
+    assertEquals(0, dataSource.getHikariPoolMXBean().getActiveConnections());
   }
-}
\ No newline at end of file
+}